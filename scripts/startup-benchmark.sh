@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+#
+# Measures the time from JVM start until the transformer is ready to take work,
+# with and without the class data sharing archive of the image.
+#
+# Usage: scripts/startup-benchmark.sh <image> [runs]
+#
+# The time is read from the "Ready to take work" log message. No broker is
+# needed, the message listeners are not started.
+
+set -euo pipefail
+
+image="${1:?Usage: $0 <image> [runs]}"
+runs="${2:-5}"
+timeout=300
+
+measure() {
+  local java_options="$1"
+  local container
+  container=$(docker run -d -e JAVA_TOOL_OPTIONS="$java_options" "$image" \
+    --spring.rabbitmq.listener.simple.auto-startup=false)
+
+  local waited=0
+  local time=""
+  while [ -z "$time" ] && [ "$waited" -lt "$timeout" ]; do
+    sleep 1
+    waited=$((waited + 1))
+    time=$(docker logs "$container" 2>&1 | sed -n 's/.*Ready to take work \([0-9]*\) ms.*/\1/p' | head -n 1)
+  done
+  docker rm -f "$container" > /dev/null
+
+  if [ -z "$time" ]; then
+    echo "Container did not become ready within $timeout s" >&2
+    exit 1
+  fi
+  echo "$time"
+}
+
+report() {
+  local label="$1"
+  local java_options="$2"
+  local times=()
+  for ((i = 1; i <= runs; i++)); do
+    times+=("$(measure "$java_options")")
+  done
+
+  local sorted
+  sorted=$(printf '%s\n' "${times[@]}" | sort -n)
+  local min median max
+  min=$(echo "$sorted" | head -n 1)
+  median=$(echo "$sorted" | sed -n "$(((runs + 1) / 2))p")
+  max=$(echo "$sorted" | tail -n 1)
+  printf '%-10s time-to-ready [ms]: min %6d  median %6d  max %6d  (%d runs)\n' \
+    "$label" "$min" "$median" "$max" "$runs"
+}
+
+report "with CDS" ""
+report "no CDS" "-Xshare:off"
@@ -0,0 +1,71 @@
+package to.wetransform.hale.transformer.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.server.SystemLauncher;
+
+/**
+ * In-memory AMQP 0-9-1 broker (Apache Qpid Broker-J) for running the load test
+ * without an external RabbitMQ.
+ */
+public class EmbeddedBroker implements AutoCloseable {
+
+    public static final String USERNAME = "guest";
+
+    public static final String PASSWORD = "guest";
+
+    private final SystemLauncher launcher = new SystemLauncher();
+
+    private final int port;
+
+    private EmbeddedBroker(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Start a broker on a free port.
+     *
+     * @return the started broker
+     * @throws Exception if the broker fails to start
+     */
+    public static EmbeddedBroker start() throws Exception {
+        EmbeddedBroker broker = new EmbeddedBroker(findFreePort());
+
+        Path workDir = Files.createTempDirectory("hale-transformer-broker");
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("qpid.amqp_port", broker.port);
+        context.put("qpid.work_dir", workDir.toString());
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("type", "Memory");
+        attributes.put(
+                "initialConfigurationLocation",
+                EmbeddedBroker.class.getResource("/embedded-broker.json").toExternalForm());
+        attributes.put("startupLoggedToSystemOut", false);
+        attributes.put("context", context);
+
+        broker.launcher.startup(attributes);
+        return broker;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
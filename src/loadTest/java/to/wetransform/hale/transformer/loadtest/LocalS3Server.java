@@ -0,0 +1,167 @@
+package to.wetransform.hale.transformer.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal in-memory stand-in for an S3 object storage, supporting path-style
+ * PUT, GET, HEAD and DELETE of objects.
+ */
+public class LocalS3Server implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    private final AtomicLong bytesUploaded = new AtomicLong();
+
+    private LocalS3Server(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Start a server on a free port.
+     *
+     * @return the started server
+     * @throws IOException if the server cannot be started
+     */
+    public static LocalS3Server start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        LocalS3Server s3 = new LocalS3Server(server);
+        server.createContext("/", s3::handle);
+        server.start();
+        return s3;
+    }
+
+    /**
+     * @return the endpoint to configure S3 clients with
+     */
+    public URI getEndpoint() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    /**
+     * @return the total number of bytes of all uploaded objects
+     */
+    public long getBytesUploaded() {
+        return bytesUploaded.get();
+    }
+
+    /**
+     * @param bucket the bucket name
+     * @param key the object key
+     * @return the object content or <code>null</code>
+     */
+    public byte[] getObject(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            // path-style: /<bucket>/<key>
+            String path = exchange.getRequestURI().getPath().substring(1);
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    byte[] content = readContent(exchange);
+                    objects.put(path, content);
+                    bytesUploaded.addAndGet(content.length);
+                    exchange.getResponseHeaders().add("ETag", "\"" + md5(content) + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET", "HEAD" -> {
+                    byte[] content = objects.get(path);
+                    if (content == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().add("ETag", "\"" + md5(content) + "\"");
+                    if ("HEAD".equals(exchange.getRequestMethod())) {
+                        exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                        exchange.sendResponseHeaders(200, -1);
+                    } else {
+                        exchange.sendResponseHeaders(200, content.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(content);
+                        }
+                    }
+                }
+                case "DELETE" -> {
+                    objects.remove(path);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private static byte[] readContent(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+
+        String contentSha = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (contentSha != null && contentSha.startsWith("STREAMING-")) {
+            return decodeAwsChunked(body);
+        }
+        return body;
+    }
+
+    /**
+     * Decode a body sent with <code>aws-chunked</code> content encoding, i.e.
+     * <code>&lt;hex size&gt;;chunk-signature=...\r\n&lt;data&gt;\r\n</code> per
+     * chunk, terminated by a chunk of size zero.
+     */
+    private static byte[] decodeAwsChunked(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int pos = 0;
+        while (pos < body.length) {
+            int lineEnd = indexOfCrLf(body, pos);
+            String header = new String(body, pos, lineEnd - pos, StandardCharsets.US_ASCII);
+            int separator = header.indexOf(';');
+            int size = Integer.parseInt(separator >= 0 ? header.substring(0, separator) : header, 16);
+            if (size == 0) {
+                break;
+            }
+            out.write(body, lineEnd + 2, size);
+            pos = lineEnd + 2 + size + 2;
+        }
+        return out.toByteArray();
+    }
+
+    private static int indexOfCrLf(byte[] data, int from) {
+        for (int i = from; i < data.length - 1; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return data.length;
+    }
+
+    private static String md5(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
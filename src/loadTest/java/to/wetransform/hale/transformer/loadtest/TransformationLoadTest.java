@@ -0,0 +1,241 @@
+package to.wetransform.hale.transformer.loadtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import to.wetransform.hale.transformer.api.TransformerApiApplication;
+import to.wetransform.hale.transformer.api.messaging.TransformationMessageConsumer.TransformationMessage;
+import to.wetransform.hale.transformer.api.messaging.TransformationProgressPublisher;
+import to.wetransform.hale.transformer.api.messaging.TransformationProgressPublisher.TransformationResultMessage;
+
+/**
+ * Throughput test running the application against an embedded AMQP broker and
+ * a local S3 stand-in.
+ *
+ * <p>Configured with system properties:
+ *
+ * <ul>
+ *   <li><code>loadtest.project</code> - path of a local hale project that
+ *       transforms XPlanGML 5.4, by default the bundled sample project with
+ *       its schemas is used, so the test runs without network access
+ *   <li><code>loadtest.mix</code> - jobs to publish as comma separated
+ *       <code>&lt;count&gt;x&lt;features&gt;</code> entries, default
+ *       <code>10x50,3x1000,1x10000</code>
+ *   <li><code>loadtest.timeout</code> - minutes to wait for all jobs, default 60
+ * </ul>
+ */
+class TransformationLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransformationLoadTest.class);
+
+    private static final String BUCKET = "loadtest";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testThroughput() throws Exception {
+        String project = System.getProperty("loadtest.project");
+        String projectUrl;
+        if (project != null) {
+            projectUrl = new File(project).toURI().toString();
+        } else {
+            URL bundled = getClass().getResource("/project.hale");
+            assertNotNull(bundled, "Bundled sample project not found");
+            projectUrl = bundled.toURI().toString();
+        }
+        List<Integer> jobs = parseMix(System.getProperty("loadtest.mix", "10x50,3x1000,1x10000"));
+        long timeout = TimeUnit.MINUTES.toMillis(Long.getLong("loadtest.timeout", 60));
+
+        // generate the fixtures, one per distinct size
+        Map<Integer, String> fixtures = new TreeMap<>();
+        long sourceBytes = 0;
+        for (int features : jobs) {
+            if (!fixtures.containsKey(features)) {
+                Path file = tempDir.resolve("plan-" + features + ".gml");
+                XPlanFixtures.writePlan(file, features, features);
+                fixtures.put(features, file.toUri().toString());
+                sourceBytes += Files.size(file);
+            }
+        }
+
+        try (EmbeddedBroker broker = EmbeddedBroker.start();
+                LocalS3Server s3 = LocalS3Server.start();
+                ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                                TransformerApiApplication.class)
+                        .run(
+                                "--spring.rabbitmq.host=localhost",
+                                "--spring.rabbitmq.port=" + broker.getPort(),
+                                "--spring.rabbitmq.username=" + EmbeddedBroker.USERNAME,
+                                "--spring.rabbitmq.password=" + EmbeddedBroker.PASSWORD,
+                                "--transformer.progress.interval=60000",
+                                // the S3 stand-in only supports path-style requests
+                                "--transformer.s3.path-style-access=true")) {
+            RabbitTemplate template = context.getBean(RabbitTemplate.class);
+            RabbitAdmin admin = new RabbitAdmin(template.getConnectionFactory());
+
+            // collect the result messages
+            Queue results = new AnonymousQueue();
+            admin.declareQueue(results);
+            admin.declareBinding(BindingBuilder.bind(results)
+                    .to(new TopicExchange(TransformerApiApplication.PROGRESS_EXCHANGE_NAME))
+                    .with(TransformationProgressPublisher.RESULT_ROUTING_KEY_PREFIX + "#"));
+
+            resetPeakHeap();
+            long start = System.currentTimeMillis();
+
+            for (int i = 0; i < jobs.size(); i++) {
+                int features = jobs.get(i);
+                TransformationMessage message = new TransformationMessage(
+                        projectUrl,
+                        fixtures.get(features),
+                        "result-" + i + ".gml",
+                        s3.getEndpoint().toString(),
+                        "eu-central-1",
+                        BUCKET,
+                        "ACCESSKEY",
+                        "SECRETKEY",
+                        "loadtest-" + i + "-" + features,
+                        false,
+                        false,
+                        null,
+                        null);
+                template.convertAndSend(
+                        TransformerApiApplication.TOPIC_EXCHANGE_NAME, "hale.transformation.loadtest", message);
+            }
+
+            ObjectMapper mapper = new ObjectMapper();
+            List<TransformationResultMessage> received = new ArrayList<>();
+            while (received.size() < jobs.size() && System.currentTimeMillis() - start < timeout) {
+                Message message = template.receive(results.getName(), 1000);
+                if (message != null) {
+                    received.add(mapper.readValue(message.getBody(), TransformationResultMessage.class));
+                }
+            }
+            long duration = System.currentTimeMillis() - start;
+
+            String report = report(received, jobs.size(), duration, sourceBytes, s3.getBytesUploaded());
+            LOG.info("Load test results:\n{}", report);
+            Path reportFile = Path.of("build", "reports", "loadtest", "summary.txt");
+            Files.createDirectories(reportFile.getParent());
+            Files.writeString(reportFile, report);
+
+            assertEquals(jobs.size(), received.size(), "Not all jobs finished within the timeout");
+        }
+    }
+
+    private static List<Integer> parseMix(String mix) {
+        List<Integer> jobs = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("x");
+            int count = Integer.parseInt(parts[0]);
+            int features = Integer.parseInt(parts[1]);
+            for (int i = 0; i < count; i++) {
+                jobs.add(features);
+            }
+        }
+        // interleave sizes like a real queue would
+        Collections.shuffle(jobs, new Random(42));
+        return jobs;
+    }
+
+    private static String report(
+            List<TransformationResultMessage> results,
+            int published,
+            long duration,
+            long sourceBytes,
+            long bytesUploaded) {
+        StringBuilder report = new StringBuilder();
+        long succeeded = results.stream()
+                .filter(TransformationResultMessage::success)
+                .count();
+        report.append(String.format(
+                Locale.ROOT,
+                "jobs: %d published, %d finished, %d succeeded in %.1f s%n",
+                published,
+                results.size(),
+                succeeded,
+                duration / 1000.0));
+        report.append(String.format(Locale.ROOT, "throughput: %.3f jobs/s%n", results.size() * 1000.0 / duration));
+        report.append(String.format(Locale.ROOT, "peak heap: %d MiB%n", getPeakHeap() / (1024 * 1024)));
+        report.append(String.format(
+                Locale.ROOT, "bytes: %d source fixtures, %d uploaded%n", sourceBytes, bytesUploaded));
+
+        // latency percentiles per stage
+        Map<String, List<Long>> latencies = new TreeMap<>();
+        for (TransformationResultMessage result : results) {
+            latencies.computeIfAbsent("TOTAL", k -> new ArrayList<>()).add(result.elapsedMillis());
+            if (result.stageTimings() != null) {
+                result.stageTimings()
+                        .forEach((stage, time) -> latencies
+                                .computeIfAbsent(stage, k -> new ArrayList<>())
+                                .add(time));
+            }
+        }
+        report.append(String.format(Locale.ROOT, "%-14s %8s %8s %8s %8s%n", "stage [ms]", "p50", "p90", "p99", "max"));
+        latencies.forEach((stage, values) -> {
+            Collections.sort(values);
+            report.append(String.format(
+                    Locale.ROOT,
+                    "%-14s %8d %8d %8d %8d%n",
+                    stage,
+                    percentile(values, 50),
+                    percentile(values, 90),
+                    percentile(values, 99),
+                    values.get(values.size() - 1)));
+        });
+        return report.toString();
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,114 @@
+package to.wetransform.hale.transformer.loadtest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates synthetic XPlanGML 5.4 plans of configurable size. The plans do not
+ * reference a schema location, the schema is expected to be part of the
+ * project.
+ */
+public class XPlanFixtures {
+
+    private static final String NAMESPACES = "xmlns:xplan=\"http://www.xplanung.de/xplangml/5/4\""
+            + " xmlns:gml=\"http://www.opengis.net/gml/3.2\""
+            + " xmlns:xlink=\"http://www.w3.org/1999/xlink\"";
+
+    private static final String SRS = "EPSG:25832";
+
+    private XPlanFixtures() {}
+
+    /**
+     * Write a plan with one plan, one area (Bereich) and the given number of
+     * building areas.
+     *
+     * @param file the file to write
+     * @param features the number of building areas
+     * @param seed seed for the generated geometries
+     * @throws IOException if writing the file fails
+     */
+    public static void writePlan(Path file, int features, long seed) throws IOException {
+        Random random = new Random(seed);
+        double originX = 560000 + random.nextInt(10000);
+        double originY = 5930000 + random.nextInt(10000);
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(features)));
+        double cellSize = 20;
+        double extent = columns * cellSize;
+
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<xplan:XPlanAuszug " + NAMESPACES + " gml:id=\"auszug-" + seed + "\">\n");
+
+            out.write("  <gml:featureMember>\n");
+            out.write("    <xplan:BP_Plan gml:id=\"plan-" + seed + "\">\n");
+            out.write("      <xplan:name>Synthetic plan " + seed + "</xplan:name>\n");
+            out.write("      <xplan:raeumlicherGeltungsbereich>\n");
+            writePolygon(out, "plan-geom-" + seed, originX, originY, extent);
+            out.write("      </xplan:raeumlicherGeltungsbereich>\n");
+            out.write("      <xplan:gemeinde><xplan:XP_Gemeinde><xplan:ags>02000000</xplan:ags>"
+                    + "</xplan:XP_Gemeinde></xplan:gemeinde>\n");
+            out.write("      <xplan:planArt>1000</xplan:planArt>\n");
+            out.write("      <xplan:bereich xlink:href=\"#bereich-" + seed + "\"/>\n");
+            out.write("    </xplan:BP_Plan>\n");
+            out.write("  </gml:featureMember>\n");
+
+            out.write("  <gml:featureMember>\n");
+            out.write("    <xplan:BP_Bereich gml:id=\"bereich-" + seed + "\">\n");
+            out.write("      <xplan:nummer>0</xplan:nummer>\n");
+            for (int i = 0; i < features; i++) {
+                out.write("      <xplan:planinhalt xlink:href=\"#flaeche-" + seed + "-" + i + "\"/>\n");
+            }
+            out.write("      <xplan:gehoertZuPlan xlink:href=\"#plan-" + seed + "\"/>\n");
+            out.write("    </xplan:BP_Bereich>\n");
+            out.write("  </gml:featureMember>\n");
+
+            for (int i = 0; i < features; i++) {
+                double x = originX + (i % columns) * cellSize;
+                double y = originY + (i / columns) * cellSize;
+                String id = "flaeche-" + seed + "-" + i;
+
+                out.write("  <gml:featureMember>\n");
+                out.write("    <xplan:BP_BaugebietsTeilFlaeche gml:id=\"" + id + "\">\n");
+                out.write("      <xplan:ebene>0</xplan:ebene>\n");
+                out.write("      <xplan:rechtscharakter>1000</xplan:rechtscharakter>\n");
+                out.write("      <xplan:gehoertZuBereich xlink:href=\"#bereich-" + seed + "\"/>\n");
+                out.write("      <xplan:position>\n");
+                writePolygon(out, id + "-geom", x, y, cellSize * (0.5 + random.nextDouble() * 0.5));
+                out.write("      </xplan:position>\n");
+                out.write("      <xplan:flaechenschluss>true</xplan:flaechenschluss>\n");
+                out.write("      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>\n");
+                out.write("      <xplan:GRZ>" + String.format(Locale.ROOT, "%.1f", 0.2 + random.nextInt(5) / 10.0)
+                        + "</xplan:GRZ>\n");
+                out.write("    </xplan:BP_BaugebietsTeilFlaeche>\n");
+                out.write("  </gml:featureMember>\n");
+            }
+
+            out.write("</xplan:XPlanAuszug>\n");
+        }
+    }
+
+    private static void writePolygon(Writer out, String id, double x, double y, double size) throws IOException {
+        out.write("        <gml:Polygon gml:id=\"" + id + "\" srsName=\"" + SRS + "\">\n");
+        out.write("          <gml:exterior><gml:LinearRing><gml:posList>");
+        out.write(String.format(
+                Locale.ROOT,
+                "%.3f %.3f %.3f %.3f %.3f %.3f %.3f %.3f %.3f %.3f",
+                x,
+                y,
+                x + size,
+                y,
+                x + size,
+                y + size,
+                x,
+                y + size,
+                x,
+                y));
+        out.write("</gml:posList></gml:LinearRing></gml:exterior>\n");
+        out.write("        </gml:Polygon>\n");
+    }
+}
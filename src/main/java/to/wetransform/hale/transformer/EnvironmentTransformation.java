@@ -0,0 +1,120 @@
+package to.wetransform.hale.transformer;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import eu.esdihumboldt.hale.app.transform.ExecContext;
+import eu.esdihumboldt.hale.common.core.io.HaleIO;
+import eu.esdihumboldt.hale.common.core.io.Value;
+import eu.esdihumboldt.hale.common.core.io.project.model.IOConfiguration;
+import eu.esdihumboldt.hale.common.core.io.supplier.DefaultInputSupplier;
+import eu.esdihumboldt.hale.common.core.io.supplier.FileIOSupplier;
+import eu.esdihumboldt.hale.common.core.report.ReportHandler;
+import eu.esdihumboldt.hale.common.headless.TransformationEnvironment;
+import eu.esdihumboldt.hale.common.headless.report.ReportFile;
+import eu.esdihumboldt.hale.common.headless.transform.Transformation;
+import eu.esdihumboldt.hale.common.instance.io.InstanceReader;
+import eu.esdihumboldt.hale.common.instance.io.InstanceWriter;
+import org.eclipse.core.runtime.content.IContentType;
+
+/**
+ * Runs the transformation configured in an {@link ExecContext} with a
+ * transformation environment that was loaded before. Unlike
+ * {@link eu.esdihumboldt.hale.app.transform.ExecTransformation}, which loads
+ * the project for every run, the environment with the project, its schemas
+ * and the alignment can be shared by any number of transformations.
+ */
+public class EnvironmentTransformation {
+
+    private final TransformationEnvironment environment;
+
+    /**
+     * @param environment the loaded transformation environment
+     */
+    public EnvironmentTransformation(TransformationEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Run a transformation, the reports are written to the reports file of the
+     * context.
+     *
+     * @param context the transformation configuration
+     * @param processId the identifier of the transformation process
+     * @return if the transformation was successful
+     * @throws Exception if the transformation cannot be configured or fails
+     */
+    public boolean run(ExecContext context, String processId) throws Exception {
+        ReportHandler reportHandler = new ReportFile(context.getReportsOut());
+
+        List<InstanceReader> sources = new ArrayList<>();
+        for (int i = 0; i < context.getSources().size(); i++) {
+            sources.add(createReader(
+                    context.getSources().get(i),
+                    context.getSourceProviderIds().get(i),
+                    context.getSourcesSettings().get(i)));
+        }
+
+        InstanceWriter writer = createWriter(context);
+
+        return Transformation.transform(
+                        sources, writer, environment, reportHandler, processId, Collections.emptyList())
+                .get();
+    }
+
+    private InstanceReader createReader(URI location, String providerId, Map<String, Value> settings) {
+        DefaultInputSupplier input = new DefaultInputSupplier(location);
+        IContentType contentType = HaleIO.findContentType(InstanceReader.class, input, location.getPath());
+
+        InstanceReader reader;
+        if (providerId != null) {
+            reader = HaleIO.createIOProvider(InstanceReader.class, contentType, providerId);
+        } else {
+            reader = HaleIO.findIOProvider(InstanceReader.class, input, location.getPath());
+        }
+        if (reader == null) {
+            throw new IllegalStateException("No reader available for source " + location);
+        }
+
+        reader.setSource(input);
+        if (contentType != null) {
+            reader.setContentType(contentType);
+        }
+        reader.setSourceSchema(environment.getSourceSchema());
+        if (settings != null) {
+            settings.forEach(reader::setParameter);
+        }
+        return reader;
+    }
+
+    private InstanceWriter createWriter(ExecContext context) {
+        InstanceWriter writer;
+        if (context.getPreset() != null) {
+            IOConfiguration preset = environment.getExportPresets().get(context.getPreset());
+            if (preset == null) {
+                throw new IllegalStateException("Export preset " + context.getPreset() + " not found in project");
+            }
+            writer = HaleIO.createIOProvider(InstanceWriter.class, null, preset.getProviderId());
+            if (writer != null) {
+                writer.loadConfiguration(preset.getProviderConfiguration());
+            }
+        } else {
+            writer = HaleIO.createIOProvider(InstanceWriter.class, null, context.getTargetProviderId());
+        }
+        if (writer == null) {
+            throw new IllegalStateException("No writer available for the transformation target");
+        }
+
+        if (context.getTargetSettings() != null) {
+            context.getTargetSettings().forEach(writer::setParameter);
+        }
+        writer.setTarget(new FileIOSupplier(new File(context.getTarget())));
+        writer.setTargetSchema(environment.getTargetSchema());
+        return writer;
+    }
+}
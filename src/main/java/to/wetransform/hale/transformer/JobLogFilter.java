@@ -0,0 +1,21 @@
+package to.wetransform.hale.transformer;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Logback filter that only accepts events logged while a transformation job is
+ * running on the current thread, i.e. events that have the location of the
+ * job's log file in their MDC.
+ */
+public class JobLogFilter extends Filter<ILoggingEvent> {
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (event.getMDCPropertyMap().containsKey(Transformer.JOB_LOG_MDC_KEY)) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+}
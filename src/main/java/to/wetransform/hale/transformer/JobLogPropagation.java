@@ -0,0 +1,64 @@
+package to.wetransform.hale.transformer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.slf4j.MDC;
+
+/**
+ * Carries the job log of a transformation over to the Eclipse jobs hale runs
+ * the transformation, export and validation in. The log file in the MDC of the
+ * thread that schedules a job is set on the worker thread while the job runs,
+ * so the events of the worker threads end up in the job log as well.
+ */
+public class JobLogPropagation extends JobChangeAdapter {
+
+    private static volatile boolean installed = false;
+
+    private final Map<Job, String> scheduledLogs = new ConcurrentHashMap<>();
+
+    private final Map<Job, Thread> workers = new ConcurrentHashMap<>();
+
+    /**
+     * Register the propagation with the job manager. Only the first call has
+     * an effect.
+     */
+    public static synchronized void install() {
+        if (!installed) {
+            Job.getJobManager().addJobChangeListener(new JobLogPropagation());
+            installed = true;
+        }
+    }
+
+    @Override
+    public void scheduled(IJobChangeEvent event) {
+        // called on the thread that schedules the job
+        String logFile = MDC.get(Transformer.JOB_LOG_MDC_KEY);
+        if (logFile != null) {
+            scheduledLogs.put(event.getJob(), logFile);
+        }
+    }
+
+    @Override
+    public void running(IJobChangeEvent event) {
+        // called on the worker thread before the job runs
+        String logFile = scheduledLogs.get(event.getJob());
+        if (logFile != null) {
+            MDC.put(Transformer.JOB_LOG_MDC_KEY, logFile);
+            workers.put(event.getJob(), Thread.currentThread());
+        }
+    }
+
+    @Override
+    public void done(IJobChangeEvent event) {
+        scheduledLogs.remove(event.getJob());
+        // jobs cancelled before they run are done on the cancelling thread,
+        // which keeps its own log
+        if (workers.remove(event.getJob()) == Thread.currentThread()) {
+            MDC.remove(Transformer.JOB_LOG_MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package to.wetransform.hale.transformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * JDK Flight Recorder recording of a single transformation job.
+ *
+ * <p>Note that a recording captures the whole JVM, so other jobs running at the
+ * same time will show up in it as well.
+ */
+public class JobRecording implements AutoCloseable {
+
+    /**
+     * Name of the JFR configuration used for job recordings
+     */
+    public static final String CONFIGURATION_NAME = "profile";
+
+    private final String jobId;
+    private final Recording recording;
+
+    private JobRecording(String jobId, Recording recording) {
+        this.jobId = jobId;
+        this.recording = recording;
+    }
+
+    /**
+     * Start a recording for the given job.
+     *
+     * @param jobId the job identifier
+     * @return the started recording
+     * @throws IOException if the JFR configuration cannot be read
+     * @throws ParseException if the JFR configuration cannot be parsed
+     */
+    public static JobRecording start(String jobId) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration(CONFIGURATION_NAME));
+        recording.setName("hale-transformer-" + jobId);
+        recording.enable(TransformationStageEvent.class);
+        recording.start();
+        return new JobRecording(jobId, recording);
+    }
+
+    /**
+     * Stop the recording and write it to a file.
+     *
+     * @param directory the directory to write the recording to
+     * @return the file the recording was written to
+     * @throws IOException if writing the recording fails
+     */
+    public File stopAndDump(File directory) throws IOException {
+        recording.stop();
+        Path file = directory.toPath().resolve("job-" + jobId + ".jfr");
+        recording.dump(file);
+        return file.toFile();
+    }
+
+    @Override
+    public void close() {
+        recording.close();
+    }
+}
@@ -0,0 +1,156 @@
+package to.wetransform.hale.transformer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admits transformation jobs based on the heap they are estimated to need, so
+ * that concurrent jobs do not exhaust the heap together.
+ *
+ * <p>The estimate is proportional to the source size, which is determined
+ * before the source is downloaded where possible. A job is always admitted if
+ * no other job is running, even if its estimate exceeds the heap. Sources of
+ * unknown size are admitted without a reservation.
+ */
+public class MemoryAdmission {
+
+    private final double heapFactor;
+
+    private final long maxHeap;
+
+    private final Map<String, Long> reservations = new ConcurrentHashMap<>();
+
+    private long lastRejected = 0;
+
+    /**
+     * Create a memory admission for the heap of the JVM.
+     *
+     * @param heapFactor the estimated heap needed per byte of source data, a
+     *            value of zero or less admits all jobs
+     */
+    public MemoryAdmission(double heapFactor) {
+        this(heapFactor, Runtime.getRuntime().maxMemory());
+    }
+
+    /**
+     * Create a memory admission.
+     *
+     * @param heapFactor the estimated heap needed per byte of source data, a
+     *            value of zero or less admits all jobs
+     * @param maxHeap the heap available to all jobs in bytes
+     */
+    public MemoryAdmission(double heapFactor, long maxHeap) {
+        this.heapFactor = heapFactor;
+        this.maxHeap = maxHeap;
+    }
+
+    /**
+     * Estimate the heap a transformation needs.
+     *
+     * @param sourceSize the size of the source data in bytes
+     * @return the estimated heap in bytes
+     */
+    public long estimateHeap(long sourceSize) {
+        return (long) (Math.max(0, sourceSize) * heapFactor);
+    }
+
+    /**
+     * Try to reserve heap for a job. If the job already holds a reservation,
+     * it is replaced.
+     *
+     * @param jobId the job identifier
+     * @param sourceSize the size of the source data in bytes, -1 if unknown
+     * @return <code>true</code> if the job may run, <code>false</code> if it
+     *         has to wait for other jobs to finish
+     */
+    public synchronized boolean admit(String jobId, long sourceSize) {
+        if (sourceSize < 0) {
+            return true;
+        }
+        return reserveHeap(jobId, estimateHeap(sourceSize));
+    }
+
+    /**
+     * Try to reserve a given amount of heap for a job, e.g. for work that does
+     * not depend on the source size alone. If the job already holds a
+     * reservation, it is replaced.
+     *
+     * @param jobId the job identifier
+     * @param needed the heap needed in bytes
+     * @return <code>true</code> if the job may run, <code>false</code> if it
+     *         has to wait for other jobs to finish
+     */
+    public synchronized boolean reserveHeap(String jobId, long needed) {
+        if (heapFactor <= 0) {
+            return true;
+        }
+
+        Long previous = reservations.get(jobId);
+        long others = getReservedBytes() - (previous != null ? previous : 0);
+        boolean alone = reservations.isEmpty() || (previous != null && reservations.size() == 1);
+        if (alone || others + needed <= maxHeap) {
+            reservations.put(jobId, needed);
+            if (previous != null && previous > needed) {
+                notifyAll();
+            }
+            return true;
+        }
+        lastRejected = needed;
+        return false;
+    }
+
+    /**
+     * Reserve heap for a job, waiting for other jobs to release their heap if
+     * necessary.
+     *
+     * @param jobId the job identifier
+     * @param sourceSize the size of the source data in bytes, -1 if unknown
+     * @param timeout the maximum time to wait in milliseconds
+     * @return <code>true</code> if the job may run, <code>false</code> if the
+     *         heap was not released in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized boolean admit(String jobId, long sourceSize, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!admit(jobId, sourceSize)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Release the heap reserved for a job.
+     *
+     * @param jobId the job identifier
+     */
+    public synchronized void release(String jobId) {
+        if (reservations.remove(jobId) != null) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return if the job rejected last would be admitted now
+     */
+    public synchronized boolean hasCapacity() {
+        return heapFactor <= 0 || reservations.isEmpty() || getReservedBytes() + lastRejected <= maxHeap;
+    }
+
+    /**
+     * @return the heap reserved by admitted jobs in bytes
+     */
+    public long getReservedBytes() {
+        return reservations.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return the heap available to all jobs in bytes
+     */
+    public long getMaxHeap() {
+        return maxHeap;
+    }
+}
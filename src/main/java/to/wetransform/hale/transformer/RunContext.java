@@ -2,27 +2,97 @@ package to.wetransform.hale.transformer;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
 
 public class RunContext {
 
+    private final Path baseDir;
+
     private final List<Path> tempFiles = new ArrayList<>();
 
-    public File createTempDir() throws IOException {
-        Path path = Files.createTempDirectory("hale-transformer");
+    /**
+     * Create a context with temporary directories in the default temporary
+     * directory.
+     */
+    public RunContext() {
+        this(null);
+    }
+
+    /**
+     * Create a context with temporary directories in the given directory.
+     *
+     * @param baseDir the directory to create temporary directories in,
+     *            <code>null</code> for the default temporary directory
+     */
+    public RunContext(Path baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    public synchronized File createTempDir() throws IOException {
+        Path path = baseDir != null
+                ? Files.createTempDirectory(baseDir, "hale-transformer")
+                : Files.createTempDirectory("hale-transformer");
         tempFiles.add(path);
         return path.toFile();
     }
 
-    public void cleanUp() throws IOException {
+    /**
+     * @param path a file or directory
+     * @return if the path is one of the temporary directories of this context or
+     *         located in one
+     */
+    public synchronized boolean contains(Path path) {
+        return tempFiles.stream().anyMatch(path::startsWith);
+    }
+
+    /**
+     * @return the size of all files in the temporary directories in bytes
+     */
+    public synchronized long getDiskUsage() {
+        long size = 0;
+        for (Path path : tempFiles) {
+            size += sizeOf(path);
+        }
+        return size;
+    }
+
+    public synchronized void cleanUp() throws IOException {
         for (Path path : tempFiles) {
             FileUtils.deleteDirectory(path.toFile());
         }
         tempFiles.clear();
     }
+
+    /**
+     * Determine the size of a file or directory, ignoring files that are deleted
+     * concurrently.
+     *
+     * @param path the file or directory
+     * @return the size in bytes
+     */
+    static long sizeOf(Path path) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(Files::isRegularFile)
+                    .mapToLong(file -> {
+                        try {
+                            return Files.size(file);
+                        } catch (IOException e) {
+                            return 0;
+                        }
+                    })
+                    .sum();
+        } catch (IOException | UncheckedIOException e) {
+            return 0;
+        }
+    }
 }
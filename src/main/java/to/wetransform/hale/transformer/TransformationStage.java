@@ -0,0 +1,25 @@
+package to.wetransform.hale.transformer;
+
+/**
+ * Stages a job passes through in {@link Transformer}.
+ */
+public enum TransformationStage {
+    /** Creating the working directory, log and report files */
+    SETUP,
+    /** Initializing the extension registry and Groovy meta classes */
+    INIT,
+    /** Loading the hale project */
+    LOAD_PROJECT,
+    /** Scanning the source for its size, CRS and feature types */
+    SCAN,
+    /** Fingerprinting the source features for incremental transformation */
+    FINGERPRINT,
+    /** Configuring source and target of the transformation */
+    CONFIGURE,
+    /** Reading, transforming and writing the data */
+    TRANSFORM,
+    /** Evaluating the transformation reports */
+    EVALUATE,
+    /** Merging the transformed features into the result of a previous run */
+    SPLICE
+}
@@ -0,0 +1,37 @@
+package to.wetransform.hale.transformer;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event covering a single {@link TransformationStage} of a
+ * transformation job.
+ */
+@Name("to.wetransform.hale.transformer.TransformationStage")
+@Label("Transformation Stage")
+@Category({"hale", "Transformer"})
+@Description("A stage of a hale transformation job")
+@StackTrace(false)
+class TransformationStageEvent extends jdk.jfr.Event {
+
+    @Label("Job ID")
+    String jobId;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Project URL")
+    String projectUrl;
+
+    @Label("Source Size")
+    @Description("Size of the source data, -1 if unknown")
+    @DataAmount
+    long sourceSize;
+
+    @Label("Failed")
+    boolean failed;
+}
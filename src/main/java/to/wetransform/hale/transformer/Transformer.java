@@ -1,19 +1,24 @@
 package to.wetransform.hale.transformer;
 
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
+import ch.qos.logback.classic.ClassicConstants;
 import com.google.common.base.Strings;
 import eu.esdihumboldt.hale.app.transform.ExecContext;
 import eu.esdihumboldt.hale.app.transform.ExecTransformation;
-import eu.esdihumboldt.hale.app.transform.ExecUtil;
 import eu.esdihumboldt.hale.common.core.HalePlatform;
 import eu.esdihumboldt.hale.common.core.io.HaleIO;
 import eu.esdihumboldt.hale.common.core.io.IOProvider;
@@ -27,70 +32,228 @@ import eu.esdihumboldt.hale.common.core.report.Report;
 import eu.esdihumboldt.hale.common.core.report.ReportSession;
 import eu.esdihumboldt.hale.common.core.report.util.StatisticsHelper;
 import eu.esdihumboldt.hale.common.core.report.writer.ReportReader;
+import eu.esdihumboldt.hale.common.headless.TransformationEnvironment;
 import eu.esdihumboldt.hale.common.instance.io.InstanceIO;
 import eu.esdihumboldt.hale.common.instance.io.InstanceWriter;
 import eu.esdihumboldt.util.groovy.collector.StatsCollector;
 import eu.esdihumboldt.util.io.IOUtils;
-import org.apache.commons.io.output.TeeOutputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.TeeInputStream;
 import org.eclipse.core.runtime.content.IContentType;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.osgi.framework.Version;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import to.wetransform.hale.transformer.api.Init;
+import to.wetransform.hale.transformer.gml.GmlFeatures;
+import to.wetransform.hale.transformer.gml.SourceScan;
+import to.wetransform.hale.transformer.incremental.IncrementalRun;
+import to.wetransform.hale.transformer.incremental.IncrementalStore;
 
 public class Transformer {
 
     private static final Logger LOG = LoggerFactory.getLogger(Transformer.class);
 
+    /**
+     * MDC key for the location of the log file of the job running on the
+     * current thread
+     */
+    public static final String JOB_LOG_MDC_KEY = "jobLogFile";
+
     private final CountDownLatch latch = new CountDownLatch(1);
+    private final String jobId;
+    private final RunContext runContext;
     private TargetConfig targetConfig;
     private ExecContext execContext;
 
+    private IncrementalStore incrementalStore;
+
+    private String projectDigest;
+
+    private SourceScan sourceScan;
+
+    private EnvironmentTransformation environmentTransformation;
+
+    private String projectUrl;
+    private long sourceSize = -1;
+    private volatile TransformationStage currentStage;
+    private TransformationStageEvent currentStageEvent;
+    private long stageStartTime;
+    private final Map<TransformationStage, Long> stageTimings = new ConcurrentHashMap<>();
+
+    private volatile long startTime = -1;
+    private volatile long endTime = -1;
+    private volatile Boolean success;
+    private volatile JSONObject stats;
+    private volatile long instancesWritten = -1;
+
+    public Transformer() {
+        this(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Create a transformer for the given job.
+     *
+     * @param jobId the job identifier, used to tag flight recorder events
+     */
+    public Transformer(String jobId) {
+        this(jobId, new RunContext());
+    }
+
+    /**
+     * Create a transformer for the given job.
+     *
+     * @param jobId the job identifier, used to tag flight recorder events
+     * @param runContext the context to create the working directory in, the
+     *            caller is responsible for cleaning it up
+     */
+    public Transformer(String jobId, RunContext runContext) {
+        this.jobId = jobId;
+        this.runContext = runContext;
+    }
+
     public void transform(String sourceDataUrl, String projectUrl, String targetFileName) {
+        transform(sourceDataUrl, projectUrl, targetFileName, null);
+    }
+
+    /**
+     * Run a transformation.
+     *
+     * @param sourceDataUrl the location of the source data
+     * @param projectUrl the location of the hale project
+     * @param targetFileName the name of the file to write the result to
+     * @param loadedProject the already loaded project, used to determine the
+     *            export presets, may be <code>null</code> to load it from the
+     *            project URL
+     */
+    public void transform(String sourceDataUrl, String projectUrl, String targetFileName, Project loadedProject) {
         File transformationLogFile = null;
+        IncrementalRun incrementalRun = null;
+        this.projectUrl = projectUrl;
+        this.startTime = System.currentTimeMillis();
 
         try {
+            enterStage(TransformationStage.SETUP);
             Path tempDirectory = createTempDirectory();
             transformationLogFile = createTransformationLogFile(tempDirectory);
 
-            setupLogging(tempDirectory, transformationLogFile);
+            setupLogging(transformationLogFile);
             File reportFile = createReportFile(tempDirectory);
 
             LOG.info("Startup...");
             logHeapSize();
 
+            enterStage(TransformationStage.INIT);
             Init.init();
             logPlatformVersion();
 
+            enterStage(TransformationStage.LOAD_PROJECT);
             execContext = new ExecContext();
 
             // Set up project URI
             URI projectUri = new URI(projectUrl);
             execContext.setProject(projectUri);
             // Load project
-            Project project = loadProject(projectUri);
+            Project project = loadedProject;
+            if (project == null) {
+                // digest the project while loading it, it identifies the
+                // project in the incremental store
+                MessageDigest digest =
+                        incrementalStore != null && projectDigest == null ? IncrementalStore.createDigest() : null;
+                project = loadProject(projectUri, digest);
+                if (digest != null && project != null) {
+                    projectDigest = HexFormat.of().formatHex(digest.digest());
+                }
+            }
+
+            enterStage(TransformationStage.SCAN);
+            if (sourceScan == null) {
+                sourceScan = scanSource(new URI(sourceDataUrl), tempDirectory.toFile());
+            }
+            String scannedSourceUrl = sourceDataUrl;
+            if (sourceScan != null) {
+                // remote sources were downloaded while scanning
+                scannedSourceUrl = sourceScan.location().toString();
+                sourceSize = sourceScan.byteSize();
+            } else {
+                sourceSize = determineSourceSize(new URI(sourceDataUrl));
+            }
+
+            String effectiveSourceUrl = scannedSourceUrl;
+            if (incrementalStore != null) {
+                enterStage(TransformationStage.FINGERPRINT);
+                incrementalRun = prepareIncrementalRun(scannedSourceUrl, projectUri, targetFileName, tempDirectory);
+                if (incrementalRun != null) {
+                    effectiveSourceUrl = incrementalRun.getSource().toUri().toString();
+                }
+            }
 
-            Value sourceCrs = initializeSourceConfig(execContext, sourceDataUrl);
+            enterStage(TransformationStage.CONFIGURE);
+            Value sourceCrs = initializeSourceConfig(execContext, effectiveSourceUrl, sourceScan);
 
             targetConfig = configureTarget(project, sourceCrs, targetFileName);
             configureTargetContext(execContext, tempDirectory, targetConfig, reportFile);
 
             // run the transformation
+            enterStage(TransformationStage.TRANSFORM);
             LOG.info("Transforming started.");
-            new ExecTransformation().run(execContext);
+            boolean transformed = runTransformation();
 
             // evaluate results
-            boolean success = evaluateTransformationResults(reportFile);
+            enterStage(TransformationStage.EVALUATE);
+            boolean success = evaluateTransformationResults(reportFile) && transformed;
+
+            if (incrementalRun != null && success) {
+                enterStage(TransformationStage.SPLICE);
+                if (!incrementalRun.complete(Path.of(execContext.getTarget()))) {
+                    // partial result could not be merged, transform the complete source
+                    enterStage(TransformationStage.TRANSFORM);
+                    LOG.info("Transforming complete source.");
+                    execContext.setSources(List.of(incrementalRun.getFullSource().toUri()));
+                    File fullReportFile = createReportFile(tempDirectory);
+                    execContext.setReportsOut(fullReportFile);
+                    transformed = runTransformation();
+
+                    enterStage(TransformationStage.EVALUATE);
+                    success = evaluateTransformationResults(fullReportFile) && transformed;
+                    if (success) {
+                        incrementalRun.completeFull(Path.of(execContext.getTarget()));
+                    }
+                }
+            }
+
+            instancesWritten = countWrittenInstances();
+            completeStage(false);
+            this.success = success;
             LOG.info("Transformation complete with success = {}", success);
         } catch (Throwable t) {
+            completeStage(true);
+            this.success = false;
             LOG.error("Failed to execute transformation: {}", t.getMessage(), t);
         } finally {
+            if (incrementalRun != null) {
+                incrementalRun.close();
+            }
+            restoreLogging();
+            endTime = System.currentTimeMillis();
             latch.countDown();
         }
     }
 
+    /**
+     * Run the transformation with an already loaded environment, instead of
+     * loading the project again.
+     *
+     * @param environment the transformation environment of the project, the
+     *            loaded project should also be passed to
+     *            {@link #transform(String, String, String, Project)}
+     */
+    public void setEnvironment(TransformationEnvironment environment) {
+        this.environmentTransformation = environment != null ? new EnvironmentTransformation(environment) : null;
+    }
+
     public TargetConfig getTargetConfig() {
         return targetConfig;
     }
@@ -99,8 +262,272 @@ public class Transformer {
         return execContext;
     }
 
+    /**
+     * Enable incremental transformation, only transforming the features that
+     * changed since the previous run for the same project and target.
+     *
+     * @param incrementalStore the store of previous runs
+     */
+    public void setIncrementalStore(IncrementalStore incrementalStore) {
+        this.incrementalStore = incrementalStore;
+    }
+
+    /**
+     * Set the content digest of the project, if it is known already, so it
+     * does not have to be determined for an incremental transformation.
+     *
+     * @param projectDigest the project digest, see
+     *            {@link IncrementalStore#digest(URI)}
+     */
+    public void setProjectDigest(String projectDigest) {
+        this.projectDigest = projectDigest;
+    }
+
+    /**
+     * Use the result of a previous scan of the source, instead of scanning it
+     * again.
+     *
+     * @param sourceScan the scan of the source data, the transformation reads
+     *            the source from the scanned location
+     */
+    public void setSourceScan(SourceScan sourceScan) {
+        this.sourceScan = sourceScan;
+    }
+
+    /**
+     * @return the scan of the source data, <code>null</code> if the source was
+     *         not scanned (yet)
+     */
+    public SourceScan getSourceScan() {
+        return sourceScan;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * @return the stage the transformation is currently in, <code>null</code> if
+     *         it has not started yet or is finished
+     */
+    public TransformationStage getCurrentStage() {
+        return currentStage;
+    }
+
+    /**
+     * @return the size of the source data in bytes, -1 if unknown
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * @return if the transformation was successful, <code>null</code> if it is
+     *         not finished yet
+     */
+    public Boolean getSuccess() {
+        return success;
+    }
+
+    /**
+     * @return the statistics assembled from the transformation reports, may be
+     *         <code>null</code>
+     */
+    public JSONObject getStats() {
+        return stats;
+    }
+
+    /**
+     * @return the durations of the completed stages in milliseconds
+     */
+    public Map<TransformationStage, Long> getStageTimings() {
+        return new EnumMap<>(stageTimings);
+    }
+
+    /**
+     * @return the time passed since the transformation was started in
+     *         milliseconds, or its total duration if it is finished
+     */
+    public long getElapsedTime() {
+        if (startTime < 0) {
+            return 0;
+        }
+        long end = endTime >= 0 ? endTime : System.currentTimeMillis();
+        return end - startTime;
+    }
+
+    /**
+     * @return the number of instances written to the target, -1 if not known
+     *         (yet)
+     */
+    public long getInstancesWritten() {
+        return instancesWritten;
+    }
+
+    /**
+     * @return the number of bytes written to the target file so far
+     */
+    public long getBytesWritten() {
+        ExecContext context = execContext;
+        if (context == null || context.getTarget() == null) {
+            return 0;
+        }
+        File targetFile = new File(context.getTarget());
+        return targetFile.exists() ? targetFile.length() : 0;
+    }
+
+    /**
+     * @return <code>false</code> if the transformation is known to have
+     *         failed, otherwise the reports tell if it was successful
+     */
+    private boolean runTransformation() throws Exception {
+        if (environmentTransformation != null) {
+            return environmentTransformation.run(execContext, jobId);
+        }
+        new ExecTransformation().run(execContext);
+        return true;
+    }
+
+    private IncrementalRun prepareIncrementalRun(
+            String sourceDataUrl, URI projectUri, String targetFileName, Path tempDirectory) {
+        try {
+            if (projectDigest == null) {
+                projectDigest = IncrementalStore.digest(projectUri);
+            }
+            IncrementalRun run = incrementalStore.prepare(
+                    new URI(sourceDataUrl), projectDigest, targetFileName, tempDirectory.toFile());
+            LOG.info("Incremental transformation, partial = {}", run.isPartial());
+            return run;
+        } catch (Exception e) {
+            LOG.warn("Could not prepare incremental transformation, transforming complete source", e);
+            return null;
+        }
+    }
+
+    private long countWrittenInstances() {
+        try {
+            return GmlFeatures.countFeatures(Path.of(execContext.getTarget()));
+        } catch (Exception e) {
+            // not a GML feature collection
+            LOG.debug("Could not count instances in transformation result", e);
+            return -1;
+        }
+    }
+
+    private void enterStage(TransformationStage stage) {
+        completeStage(false);
+        stageStartTime = System.currentTimeMillis();
+
+        TransformationStageEvent event = new TransformationStageEvent();
+        event.jobId = jobId;
+        event.stage = stage.name();
+        event.projectUrl = projectUrl;
+        event.begin();
+
+        currentStageEvent = event;
+        currentStage = stage;
+    }
+
+    private void completeStage(boolean failed) {
+        if (currentStage != null) {
+            stageTimings.put(currentStage, System.currentTimeMillis() - stageStartTime);
+        }
+
+        TransformationStageEvent event = currentStageEvent;
+        if (event != null) {
+            event.sourceSize = sourceSize;
+            event.failed = failed;
+            event.commit();
+        }
+        currentStageEvent = null;
+        currentStage = null;
+    }
+
+    /**
+     * Scan the source data in a single streaming pass. Remote sources are
+     * downloaded to the given directory at the same time, so the
+     * transformation can read them from there.
+     *
+     * @param location the source data location
+     * @param workDir the directory to store a copy of remote sources in
+     * @return the scan result with the location of the local data, or
+     *         <code>null</code> if the source could not be scanned
+     */
+    public static SourceScan scanSource(URI location, File workDir) {
+        try {
+            SourceScan scan;
+            if ("file".equalsIgnoreCase(location.getScheme())) {
+                try (InputStream in = Files.newInputStream(Path.of(location))) {
+                    scan = GmlFeatures.scan(in, location);
+                }
+            } else {
+                File localCopy = new File(workDir, sourceFileName(location));
+                try (InputStream in = new DefaultInputSupplier(location).getInput();
+                        OutputStream out = new BufferedOutputStream(new FileOutputStream(localCopy))) {
+                    scan = GmlFeatures.scan(new TeeInputStream(in, out), localCopy.toURI());
+                }
+            }
+
+            LOG.info(
+                    "Source has {} bytes and {} features of {} types, CRS references: {}",
+                    scan.byteSize(),
+                    scan.featureCount(),
+                    scan.featureTypes().size(),
+                    scan.srsNames().keySet());
+            return scan;
+        } catch (Exception e) {
+            LOG.warn("Could not scan source data at {}: {}", location, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String sourceFileName(URI location) {
+        String path = location.getPath();
+        if (path != null) {
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            if (!name.isEmpty()) {
+                return name;
+            }
+        }
+        return "source.gml";
+    }
+
+    /**
+     * Determine the size of the source data without reading it.
+     *
+     * @param location the source data location
+     * @return the size in bytes, -1 if it cannot be determined
+     */
+    public static long determineSourceSize(URI location) {
+        try {
+            if ("file".equalsIgnoreCase(location.getScheme())) {
+                return Files.size(Path.of(location));
+            }
+
+            URLConnection connection = location.toURL().openConnection();
+            if (connection instanceof HttpURLConnection httpConnection) {
+                httpConnection.setRequestMethod("HEAD");
+                try {
+                    // error responses (e.g. presigned GET URLs rejecting HEAD)
+                    // do not describe the source
+                    int status = httpConnection.getResponseCode();
+                    if (status < 200 || status >= 300) {
+                        return -1;
+                    }
+                    return httpConnection.getContentLengthLong();
+                } finally {
+                    httpConnection.disconnect();
+                }
+            }
+            return connection.getContentLengthLong();
+        } catch (Exception e) {
+            LOG.debug("Could not determine size of source data at {}", location, e);
+            return -1;
+        }
+    }
+
     private Path createTempDirectory() throws IOException {
-        return Files.createTempDirectory("hale-transformer");
+        return runContext.createTempDir().toPath();
     }
 
     private File createTransformationLogFile(Path tempDirectory) throws IOException {
@@ -111,10 +538,20 @@ public class Transformer {
         return transformationLogFile;
     }
 
-    private void setupLogging(Path tempDirectory, File transformationLogFile) throws IOException {
-        FileOutputStream transformationLogOut = new FileOutputStream(transformationLogFile, true);
-        OutputStream tOut = new TeeOutputStream(System.out, transformationLogOut);
-        System.setOut(new PrintStream(tOut));
+    private void setupLogging(File transformationLogFile) {
+        // only events of the current thread end up in the log of this job
+        MDC.put(JOB_LOG_MDC_KEY, transformationLogFile.getAbsolutePath());
+    }
+
+    /**
+     * Stop writing to the transformation log file, so that the working directory
+     * can be removed and the appenders of finished jobs do not pile up.
+     */
+    private void restoreLogging() {
+        if (MDC.get(JOB_LOG_MDC_KEY) != null) {
+            LOG.info(ClassicConstants.FINALIZE_SESSION_MARKER, "Closing transformation log");
+            MDC.remove(JOB_LOG_MDC_KEY);
+        }
     }
 
     private File createReportFile(Path tempDirectory) throws IOException {
@@ -134,8 +571,9 @@ public class Transformer {
         LOG.info("Launching hale-transformer {}...", version);
     }
 
-    private Value initializeSourceConfig(ExecContext context, String sourceDataURL) throws URISyntaxException {
-        Map<String, Value> defaultSrs = initializeDefaultSrs();
+    private Value initializeSourceConfig(ExecContext context, String sourceDataURL, SourceScan scan)
+            throws URISyntaxException {
+        Map<String, Value> defaultSrs = initializeDefaultSrs(scan);
         SourceConfig sourceConfig = initializeSourceConfig(sourceDataURL, defaultSrs);
 
         List<SourceConfig> sourceConfigs = new ArrayList<>();
@@ -152,38 +590,33 @@ public class Transformer {
                 .map(sourceConfigList -> sourceConfigList.settings())
                 .collect(Collectors.toList()));
 
-        return extractedDetectedCRS(sourceConfigs);
+        return extractedDetectedCRS(scan);
     }
 
-    private Value extractedDetectedCRS(List<SourceConfig> sourceConfigs) {
-        // extract detected source data crs and use in target config
-        Value sourceCrs = null;
-        Throwable error = null;
-        // try each source config, in case it is not set for some
-        for (int i = 0; i < sourceConfigs.size() && (sourceCrs == null || sourceCrs.isEmpty()); i++) {
-            try {
-                sourceCrs = ((SourceConfig) sourceConfigs.get(i)).settings().get("defaultSrs");
-            } catch (Throwable t) {
-                error = t;
-            }
+    private Value extractedDetectedCRS(SourceScan scan) {
+        // use the CRS referenced in the source data in the target config
+        Integer epsgCode = scan != null ? scan.getEpsgCode() : null;
+        if (epsgCode == null) {
+            LOG.warn("Unable to determine source data CRS: No EPSG code referenced in the source data");
+            return null;
         }
 
-        if (error != null) {
-            LOG.warn("Could not determine source data CRS", error);
-        } else if (sourceCrs == null || sourceCrs.isEmpty()) {
-            LOG.warn(
-                    "Unable to determine source data CRS: None of {} sources is configured with a CRS",
-                    sourceConfigs.size());
+        if (scan.srsNames().size() > 1) {
+            LOG.warn("Source data references several CRS {}, using EPSG:{}", scan.srsNames(), epsgCode);
         }
-        return sourceCrs;
+        return Value.of("code:EPSG:" + epsgCode);
     }
 
-    private Map<String, Value> initializeDefaultSrs() {
+    private Map<String, Value> initializeDefaultSrs(SourceScan scan) {
+        // used for geometries without srsName
+        Integer epsgCode = scan != null ? scan.getEpsgCode() : null;
+        String code = "EPSG:" + (epsgCode != null ? epsgCode : 4326);
+
         Map<String, Value> defaultSrs = new HashMap<>();
-        defaultSrs.put("defaultSrs", Value.of("EPSG:4326"));
+        defaultSrs.put("defaultSrs", Value.of(code));
         defaultSrs.put("xml.pretty", Value.of(true));
         defaultSrs.put("crs.epsg.prefix", Value.of("http://www.opengis.net/def/crs/EPSG/0/"));
-        defaultSrs.put("crs", Value.of("code:EPSG:4326"));
+        defaultSrs.put("crs", Value.of("code:" + code));
         return defaultSrs;
     }
 
@@ -204,7 +637,8 @@ public class Transformer {
             targetFilename = "result.out";
         }
 
-        File targetFile = new File(resultDir, targetFilename);
+        // the target file name may be an S3 key with a path
+        File targetFile = new File(resultDir, new File(targetFilename).getName());
         context.setTarget(targetFile.toURI());
 
         String preset = targetConfig.preset();
@@ -234,18 +668,39 @@ public class Transformer {
         // evaluate results TODO to be uncommented
         ReportReader reader = new ReportReader();
         ReportSession reports = reader.readFile(reportFile);
-        JSONObject stats = getStats(reports);
+        stats = getStats(reports);
         boolean success = evaluateReports(reports.getAllReports().values(), false);
 
         LOG.info("Transformation complete with success = " + success);
         return success;
     }
 
-    private Project loadProject(URI projectUri) {
+    /**
+     * Load a hale project to determine its export presets.
+     *
+     * @param projectUri the project location
+     * @return the project or <code>null</code> if it could not be loaded
+     */
+    public static Project loadProject(URI projectUri) {
+        return loadProject(projectUri, null);
+    }
+
+    /**
+     * Load a hale project to determine its export presets.
+     *
+     * @param projectUri the project location
+     * @param digest the digest to update with the content of the project file,
+     *            may be <code>null</code>
+     * @return the project or <code>null</code> if it could not be loaded
+     */
+    private static Project loadProject(URI projectUri, MessageDigest digest) {
         DefaultInputSupplier supplier = new DefaultInputSupplier(projectUri);
         Project result = null;
-        try (InputStream in = supplier.getInput()) {
-            result = Project.load(in);
+        try (InputStream in =
+                digest != null ? new DigestInputStream(supplier.getInput(), digest) : supplier.getInput()) {
+            result = Project.load(CloseShieldInputStream.wrap(in));
+            // the digest covers the complete file
+            in.transferTo(OutputStream.nullOutputStream());
         } catch (Exception e) {
             LOG.warn("Could not load project file to determine presets: " + e.getStackTrace());
         }
@@ -422,20 +877,20 @@ public class Transformer {
 
     private boolean evaluateReports(Collection<Report<?>> reports, boolean detailed) {
         boolean ok = true;
-        ExecUtil.info("Transformation tasks summaries:");
+        LOG.info("Transformation tasks summaries:");
 
         for (Report<?> report : reports) {
             if (!report.isSuccess() || !report.getErrors().isEmpty()) {
                 ok = false;
 
-                ExecUtil.error(report.getTaskName() + ": " + report.getSummary());
+                LOG.error(report.getTaskName() + ": " + report.getSummary());
                 if (detailed) {
                     report.getErrors().forEach(e -> {
-                        ExecUtil.error(e.getStackTrace());
+                        LOG.error(e.getStackTrace());
                     });
                 }
             } else {
-                ExecUtil.info(report.getTaskName() + ": " + report.getSummary());
+                LOG.info(report.getTaskName() + ": " + report.getSummary());
             }
             // TODO process information, provide in a usable way?
         }
@@ -0,0 +1,175 @@
+package to.wetransform.hale.transformer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages the working directories of transformation jobs on the workspace
+ * volume, enforcing a quota for the disk space used by all jobs of the node.
+ */
+public class WorkspaceManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WorkspaceManager.class);
+
+    /**
+     * Minimum age of orphaned entries before they are deleted, so directories
+     * that are just being created by a job are not affected
+     */
+    private static final long ORPHAN_MIN_AGE = 60_000;
+
+    private final Path workspaceDir;
+
+    private final long quota;
+
+    private final Map<String, RunContext> activeJobs = new ConcurrentHashMap<>();
+
+    /**
+     * Create a workspace manager.
+     *
+     * @param workspaceDir the directory to create the job working directories in
+     * @param quota the maximum number of bytes all working directories may use
+     *            before new jobs are rejected
+     */
+    public WorkspaceManager(Path workspaceDir, long quota) {
+        this.workspaceDir = workspaceDir;
+        this.quota = quota;
+    }
+
+    /**
+     * Acquire a workspace for a job.
+     *
+     * @param jobId the job identifier
+     * @return the run context for the job's temporary files
+     * @throws WorkspaceQuotaExceededException if the quota is exhausted
+     * @throws IOException if the workspace directory cannot be created
+     */
+    public synchronized RunContext acquire(String jobId) throws WorkspaceQuotaExceededException, IOException {
+        Files.createDirectories(workspaceDir);
+
+        long used = getUsedBytes();
+        if (used >= quota) {
+            // leftovers of jobs that are not running anymore don't count
+            cleanUpOrphans();
+            used = getUsedBytes();
+        }
+        if (used >= quota) {
+            throw new WorkspaceQuotaExceededException(
+                    "Workspace quota exceeded, " + used + " of " + quota + " bytes in use");
+        }
+
+        RunContext context = new RunContext(workspaceDir);
+        activeJobs.put(jobId, context);
+        return context;
+    }
+
+    /**
+     * Release the workspace of a job, deleting all its files.
+     *
+     * @param jobId the job identifier
+     */
+    public void release(String jobId) {
+        RunContext context = activeJobs.remove(jobId);
+        if (context != null) {
+            long usage = context.getDiskUsage();
+            try {
+                context.cleanUp();
+                LOG.info("Released workspace of job {} using {} bytes", jobId, usage);
+            } catch (IOException e) {
+                LOG.warn("Failed to clean up workspace of job {}", jobId, e);
+            }
+        }
+    }
+
+    /**
+     * Delete all files in the workspace directory that do not belong to an
+     * active job, e.g. leftovers of a previous process or of jobs that were
+     * aborted.
+     */
+    public synchronized void cleanUpOrphans() {
+        if (!Files.isDirectory(workspaceDir)) {
+            return;
+        }
+
+        long maxModified = System.currentTimeMillis() - ORPHAN_MIN_AGE;
+        try (Stream<Path> entries = Files.list(workspaceDir)) {
+            entries.filter(entry -> lastModified(entry) < maxModified)
+                    .filter(entry ->
+                            activeJobs.values().stream().noneMatch(context -> context.contains(entry)))
+                    .forEach(entry -> {
+                        try {
+                            FileUtils.forceDelete(entry.toFile());
+                            LOG.info("Deleted orphaned workspace {}", entry);
+                        } catch (IOException e) {
+                            LOG.warn("Failed to delete orphaned workspace {}", entry, e);
+                        }
+                    });
+        } catch (IOException e) {
+            LOG.warn("Failed to list workspace directory {}", workspaceDir, e);
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            FileTime time = Files.getLastModifiedTime(path);
+            return time.toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return if the working directories use less than the quota, so new jobs
+     *         can be accepted
+     */
+    public boolean hasSpace() {
+        return getUsedBytes() < quota;
+    }
+
+    /**
+     * @return the bytes used in the workspace directory
+     */
+    public long getUsedBytes() {
+        return RunContext.sizeOf(workspaceDir);
+    }
+
+    /**
+     * @param jobId the job identifier
+     * @return the bytes used by the job, 0 if it is not active
+     */
+    public long getUsedBytes(String jobId) {
+        RunContext context = activeJobs.get(jobId);
+        return context != null ? context.getDiskUsage() : 0;
+    }
+
+    /**
+     * @return the bytes available on the workspace volume
+     */
+    public long getUsableBytes() {
+        try {
+            return Files.getFileStore(workspaceDir).getUsableSpace();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public long getQuota() {
+        return quota;
+    }
+
+    public int getActiveJobs() {
+        return activeJobs.size();
+    }
+
+    public Path getWorkspaceDir() {
+        return workspaceDir;
+    }
+}
@@ -0,0 +1,13 @@
+package to.wetransform.hale.transformer;
+
+/**
+ * Thrown if a job cannot be accepted because the workspace quota is exhausted.
+ */
+public class WorkspaceQuotaExceededException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public WorkspaceQuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -3,17 +3,33 @@ package to.wetransform.hale.transformer.api;
 import groovy.lang.GroovySystem;
 import org.eclipse.equinox.nonosgi.registry.RegistryFactoryHelper;
 import org.slf4j.bridge.SLF4JBridgeHandler;
+import to.wetransform.hale.transformer.JobLogPropagation;
 import to.wetransform.hale.transformer.api.internal.CustomMetaClassCreationHandle;
 
 public class Init {
 
-    public static void init() {
+    private static boolean initialized = false;
+
+    /**
+     * Initialize the environment for running transformations. Only the first
+     * call has an effect, so it is safe to call this for every job.
+     */
+    public static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+
         SLF4JBridgeHandler.install();
 
+        // include the worker threads of hale in the job logs
+        JobLogPropagation.install();
+
         // initialize registry
         RegistryFactoryHelper.getRegistry();
 
         // initialize meta extensions
         GroovySystem.getMetaClassRegistry().setMetaClassCreationHandle(new CustomMetaClassCreationHandle());
+
+        initialized = true;
     }
 }
@@ -20,12 +20,33 @@ public class TransformerApiApplication {
     // TODO Should be configurable
     private static final String ROUTING_KEY = "hale.transformation.#";
 
+    // TODO Should be configurable
+    private static final String BATCH_ROUTING_KEY = "hale.transformation-batch.#";
+
+    /**
+     * Prefix of the routing key for shards of a job split by a coordinating
+     * node, followed by the job ID
+     */
+    public static final String SHARD_ROUTING_KEY_PREFIX = "hale.transformation-shard.";
+
     // TODO Should be configurable
     public static final String TOPIC_EXCHANGE_NAME = "hale-transformer-exchange";
 
     // TODO Should be configurable
     public static final String QUEUE_NAME = "hale-transformation";
 
+    // TODO Should be configurable
+    public static final String BATCH_QUEUE_NAME = "hale-transformation-batch";
+
+    /**
+     * Queue for shards, consumed separately so nodes that coordinate a job
+     * still transform shards
+     */
+    public static final String SHARD_QUEUE_NAME = "hale-transformation-shard";
+
+    // TODO Should be configurable
+    public static final String PROGRESS_EXCHANGE_NAME = "hale-transformer-progress";
+
     @Bean
     Queue queue() {
         // TODO Queue should be declared passively, i.e. it should be created
@@ -33,6 +54,20 @@ public class TransformerApiApplication {
         return new Queue(QUEUE_NAME, false);
     }
 
+    @Bean
+    Queue batchQueue() {
+        // TODO Queue should be declared passively, i.e. it should be created
+        // outside of this application
+        return new Queue(BATCH_QUEUE_NAME, false);
+    }
+
+    @Bean
+    Queue shardQueue() {
+        // TODO Queue should be declared passively, i.e. it should be created
+        // outside of this application
+        return new Queue(SHARD_QUEUE_NAME, false);
+    }
+
     @Bean
     TopicExchange exchange() {
         // TODO Exchange should be declared passively, i.e. it should be created
@@ -40,11 +75,28 @@ public class TransformerApiApplication {
         return new TopicExchange(TOPIC_EXCHANGE_NAME);
     }
 
+    @Bean
+    TopicExchange progressExchange() {
+        // TODO Exchange should be declared passively, i.e. it should be created
+        // outside of this application
+        return new TopicExchange(PROGRESS_EXCHANGE_NAME);
+    }
+
     @Bean
     Binding binding(Queue queue, TopicExchange exchange) {
         return BindingBuilder.bind(queue).to(exchange).with(ROUTING_KEY);
     }
 
+    @Bean
+    Binding batchBinding(Queue batchQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(batchQueue).to(exchange).with(BATCH_ROUTING_KEY);
+    }
+
+    @Bean
+    Binding shardBinding(Queue shardQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(shardQueue).to(exchange).with(SHARD_ROUTING_KEY_PREFIX + "#");
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
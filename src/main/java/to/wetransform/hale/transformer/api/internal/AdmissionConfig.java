@@ -0,0 +1,29 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import to.wetransform.hale.transformer.MemoryAdmission;
+
+@Configuration
+public class AdmissionConfig {
+    @Value("${transformer.admission.heap-factor}")
+    private double heapFactor;
+
+    @Bean
+    MemoryAdmission memoryAdmission() {
+        return new MemoryAdmission(heapFactor);
+    }
+
+    @Bean
+    MeterBinder admissionMetrics(MemoryAdmission memoryAdmission) {
+        return registry -> Gauge.builder(
+                        "transformer.admission.reserved", memoryAdmission, MemoryAdmission::getReservedBytes)
+                .description("Heap reserved by running transformations based on their source size")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+}
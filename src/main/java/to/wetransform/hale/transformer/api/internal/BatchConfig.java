@@ -0,0 +1,28 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BatchConfig {
+    @Value("${transformer.batch.max-parallelism}")
+    private int maxParallelism;
+
+    @Value("${transformer.batch.workspace-wait}")
+    private long workspaceWait;
+
+    @Value("${transformer.batch.memory-wait}")
+    private long memoryWait;
+
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    public long getWorkspaceWait() {
+        return workspaceWait;
+    }
+
+    public long getMemoryWait() {
+        return memoryWait;
+    }
+}
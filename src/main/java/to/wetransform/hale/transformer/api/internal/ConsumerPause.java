@@ -0,0 +1,105 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import to.wetransform.hale.transformer.MemoryAdmission;
+import to.wetransform.hale.transformer.WorkspaceManager;
+
+/**
+ * Stops consuming messages while the node cannot take new jobs, so rejected
+ * messages are left to other nodes instead of being redelivered to this node
+ * right away. Consumption is resumed once the node has capacity again.
+ */
+@Service
+public class ConsumerPause {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConsumerPause.class);
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final WorkspaceManager workspaceManager;
+    private final MemoryAdmission memoryAdmission;
+    private final DrainService drainService;
+
+    private final AtomicBoolean paused = new AtomicBoolean(false);
+
+    @Autowired
+    public ConsumerPause(
+            RabbitListenerEndpointRegistry listenerRegistry,
+            WorkspaceManager workspaceManager,
+            MemoryAdmission memoryAdmission,
+            DrainService drainService) {
+        this.listenerRegistry = listenerRegistry;
+        this.workspaceManager = workspaceManager;
+        this.memoryAdmission = memoryAdmission;
+        this.drainService = drainService;
+    }
+
+    /**
+     * Stop consuming messages until the node has capacity again. The listener
+     * containers are stopped in the background, so this may be called from a
+     * listener thread; running jobs are not affected.
+     *
+     * @param reason the reason for the pause, for logging
+     */
+    public void pause(String reason) {
+        if (!paused.compareAndSet(false, true)) {
+            return;
+        }
+
+        LOG.warn("Pausing message consumption: {}", reason);
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            container.stop(() -> LOG.info("Stopped listener container {}", container.getListenerId()));
+        }
+    }
+
+    /**
+     * @return if message consumption is paused, messages that are still
+     *         delivered should be returned to the queue right away
+     */
+    public boolean isPaused() {
+        return paused.get();
+    }
+
+    /**
+     * Resume consuming messages if the node has capacity again.
+     */
+    @Scheduled(fixedDelayString = "${transformer.pause.check-interval}")
+    public void resumeIfPossible() {
+        if (!paused.get()
+                || drainService.isDraining()
+                || !workspaceManager.hasSpace()
+                || !memoryAdmission.hasCapacity()) {
+            return;
+        }
+
+        boolean running = true;
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (isStopping(container)) {
+                // still waiting for a running job, started with the next check
+                running = false;
+                continue;
+            }
+            if (!container.isRunning()) {
+                container.start();
+            }
+            running &= container.isRunning();
+        }
+        if (running && paused.compareAndSet(true, false)) {
+            LOG.info("Resumed message consumption");
+        }
+    }
+
+    private static boolean isStopping(MessageListenerContainer container) {
+        return container.isRunning()
+                && container instanceof AbstractMessageListenerContainer listenerContainer
+                && !listenerContainer.isActive();
+    }
+}
@@ -0,0 +1,39 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DrainConfig {
+    @Value("${transformer.drain.grace-period}")
+    private long gracePeriod;
+
+    public long getGracePeriod() {
+        return gracePeriod;
+    }
+
+    public void setGracePeriod(long gracePeriod) {
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Listener container factory that lets running transformations finish within
+     * the grace period when the containers are stopped, and returns prefetched
+     * messages that were not started yet to the queue.
+     */
+    @Bean
+    SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setContainerCustomizer(container -> {
+            container.setShutdownTimeout(gracePeriod);
+            container.setForceStop(true);
+        });
+        return factory;
+    }
+}
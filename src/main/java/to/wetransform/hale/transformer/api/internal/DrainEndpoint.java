@@ -0,0 +1,51 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import to.wetransform.hale.transformer.WorkspaceManager;
+
+/**
+ * Actuator endpoint to drain the node ahead of a shutdown, e.g. from a pre-stop
+ * hook.
+ */
+@Component
+@Endpoint(id = "drain")
+public class DrainEndpoint {
+
+    private final DrainService drainService;
+
+    private final WorkspaceManager workspaceManager;
+
+    @Autowired
+    public DrainEndpoint(DrainService drainService, WorkspaceManager workspaceManager) {
+        this.drainService = drainService;
+        this.workspaceManager = workspaceManager;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("draining", drainService.isDraining());
+        status.put("drained", drainService.isDrained());
+        status.put("runningJobs", workspaceManager.getActiveJobs());
+        status.put("drainMillis", drainService.getDrainTime());
+        status.put("gracePeriodExpired", drainService.isGracePeriodExpired());
+        return status;
+    }
+
+    /**
+     * Start draining the node. Returns immediately, the progress can be
+     * followed with the read operation.
+     */
+    @WriteOperation
+    public Map<String, Object> drain() {
+        drainService.startDrain();
+        return status();
+    }
+}
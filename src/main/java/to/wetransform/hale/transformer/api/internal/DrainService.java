@@ -0,0 +1,156 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drains the node before it is shut down: readiness is dropped, no more
+ * messages are consumed and running transformations get the configured grace
+ * period to finish.
+ */
+@Service
+public class DrainService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DrainService.class);
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DrainConfig drainConfig;
+
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    private final CountDownLatch drained = new CountDownLatch(1);
+
+    private volatile long drainStart = -1;
+
+    @Autowired
+    public DrainService(
+            RabbitListenerEndpointRegistry listenerRegistry,
+            ApplicationEventPublisher eventPublisher,
+            DrainConfig drainConfig) {
+        this.listenerRegistry = listenerRegistry;
+        this.eventPublisher = eventPublisher;
+        this.drainConfig = drainConfig;
+    }
+
+    /**
+     * Drain the node. Blocks until all running transformations are finished or
+     * the grace period has passed. Messages of transformations that did not
+     * finish in time are not acknowledged and thus returned to the queue. If
+     * the node is already draining, waits for that drain to complete.
+     */
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            awaitDrained();
+            return;
+        }
+
+        drainStart = System.currentTimeMillis();
+        LOG.info("Draining, waiting up to {} ms for running transformations", drainConfig.getGracePeriod());
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        try {
+            stopContainers();
+        } finally {
+            drained.countDown();
+        }
+
+        LOG.info("Draining complete");
+    }
+
+    /**
+     * Stop all listener containers at the same time, so they share the grace
+     * period. Each container waits for its running listeners up to the grace
+     * period and requeues prefetched messages.
+     */
+    private void stopContainers() {
+        Collection<MessageListenerContainer> containers = listenerRegistry.getListenerContainers();
+        CountDownLatch stopped = new CountDownLatch(containers.size());
+        for (MessageListenerContainer container : containers) {
+            container.stop(stopped::countDown);
+        }
+
+        long remaining = drainStart + drainConfig.getGracePeriod() - System.currentTimeMillis();
+        try {
+            if (!stopped.await(Math.max(0, remaining), TimeUnit.MILLISECONDS)) {
+                LOG.warn("{} listener containers did not stop within the grace period", stopped.getCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start draining the node in the background and return immediately.
+     */
+    public void startDrain() {
+        if (draining.get()) {
+            return;
+        }
+        Thread thread = new Thread(this::drain, "drain");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void awaitDrained() {
+        try {
+            drained.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return if the node is draining or has been drained
+     */
+    public boolean isDraining() {
+        return draining.get();
+    }
+
+    /**
+     * @return if draining has completed
+     */
+    public boolean isDrained() {
+        return drained.getCount() == 0;
+    }
+
+    /**
+     * Determine if the grace period of a drain has passed. The messages of jobs
+     * that are still running at this point are redelivered to other nodes, so
+     * these jobs must not store or publish results anymore.
+     *
+     * @return if the node is draining and the grace period has passed
+     */
+    public boolean isGracePeriodExpired() {
+        return draining.get() && getDrainTime() >= drainConfig.getGracePeriod();
+    }
+
+    /**
+     * @return the milliseconds since the drain started, 0 if the node is not
+     *         draining
+     */
+    public long getDrainTime() {
+        long start = drainStart;
+        return start > 0 ? System.currentTimeMillis() - start : 0;
+    }
+
+    @EventListener
+    public void onContextClosed(ContextClosedEvent event) {
+        // the event is published before the lifecycle beans are stopped
+        drain();
+    }
+}
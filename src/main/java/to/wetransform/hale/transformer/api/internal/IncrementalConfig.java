@@ -0,0 +1,37 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import to.wetransform.hale.transformer.incremental.IncrementalStore;
+
+@Configuration
+public class IncrementalConfig {
+    @Value("${transformer.incremental.store-dir}")
+    private String storeDir;
+
+    @Value("${transformer.incremental.max-changed-ratio}")
+    private double maxChangedRatio;
+
+    @Value("${transformer.incremental.max-size}")
+    private long maxSize;
+
+    @Value("${transformer.incremental.max-age}")
+    private long maxAge;
+
+    @Bean
+    IncrementalStore incrementalStore() {
+        IncrementalStore store = new IncrementalStore(Path.of(storeDir), maxChangedRatio, maxSize, maxAge);
+        // remove entries that expired while the node was not running
+        store.evict();
+        return store;
+    }
+
+    @Scheduled(fixedDelayString = "${transformer.incremental.eviction-interval}")
+    void evict() {
+        incrementalStore().evict();
+    }
+}
@@ -0,0 +1,14 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class S3Config {
+    @Value("${transformer.s3.path-style-access}")
+    private boolean pathStyleAccess;
+
+    public boolean isPathStyleAccess() {
+        return pathStyleAccess;
+    }
+}
@@ -0,0 +1,48 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import java.nio.file.Path;
+
+import com.google.common.base.Strings;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import to.wetransform.hale.transformer.schema.SchemaRepository;
+
+@Configuration
+@ConditionalOnProperty(name = "transformer.schemas.enabled", havingValue = "true")
+public class SchemaRepositoryConfig {
+    @Value("${transformer.schemas.mirror-dir:}")
+    private String mirrorDir;
+
+    @Bean
+    SchemaRepository schemaRepository() {
+        SchemaRepository repository =
+                new SchemaRepository(Strings.isNullOrEmpty(mirrorDir) ? null : Path.of(mirrorDir));
+        repository.install();
+        return repository;
+    }
+
+    @Bean
+    MeterBinder schemaRepositoryMetrics(SchemaRepository schemaRepository) {
+        return registry -> {
+            Gauge.builder("transformer.schemas.count", schemaRepository, SchemaRepository::getSchemaCount)
+                    .description("Schema locations in the shared schema repository")
+                    .register(registry);
+            Gauge.builder("transformer.schemas.size", schemaRepository, SchemaRepository::getSize)
+                    .description("Memory used by the content of shared schemas")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            FunctionCounter.builder("transformer.schemas.hits", schemaRepository, SchemaRepository::getHits)
+                    .description("Schema requests served from the shared schema repository")
+                    .register(registry);
+            FunctionCounter.builder("transformer.schemas.misses", schemaRepository, SchemaRepository::getMisses)
+                    .description("Schema requests that were downloaded")
+                    .register(registry);
+        };
+    }
+}
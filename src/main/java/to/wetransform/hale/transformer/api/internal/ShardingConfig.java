@@ -0,0 +1,63 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ShardingConfig {
+    @Value("${transformer.sharding.enabled}")
+    private boolean enabled;
+
+    @Value("${transformer.sharding.threshold}")
+    private long threshold;
+
+    @Value("${transformer.sharding.shard-size}")
+    private long shardSize;
+
+    @Value("${transformer.sharding.max-shards}")
+    private int maxShards;
+
+    @Value("${transformer.sharding.hub-degree}")
+    private int hubDegree;
+
+    @Value("${transformer.sharding.shard-timeout}")
+    private long shardTimeout;
+
+    @Value("${transformer.sharding.max-retries}")
+    private int maxRetries;
+
+    @Value("${transformer.sharding.planning-heap-per-feature}")
+    private long planningHeapPerFeature;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public long getShardSize() {
+        return shardSize;
+    }
+
+    public int getMaxShards() {
+        return maxShards;
+    }
+
+    public int getHubDegree() {
+        return hubDegree;
+    }
+
+    public long getShardTimeout() {
+        return shardTimeout;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getPlanningHeapPerFeature() {
+        return planningHeapPerFeature;
+    }
+}
@@ -0,0 +1,64 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import to.wetransform.hale.transformer.api.Init;
+
+@Configuration
+public class StartupConfig {
+    private static final Logger LOG = LoggerFactory.getLogger(StartupConfig.class);
+
+    @Value("${transformer.init.eager}")
+    private boolean eagerInit;
+
+    private volatile long timeToReady = -1;
+
+    @Bean
+    SmartInitializingSingleton eagerInit() {
+        return () -> {
+            if (eagerInit) {
+                // initialize hale before the message listener containers are
+                // started and the node reports to be ready, instead of
+                // delaying the first job
+                long start = System.currentTimeMillis();
+                Init.init();
+                LOG.info("Initialized hale in {} ms", System.currentTimeMillis() - start);
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onReady() {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        timeToReady = runtime.getUptime();
+        String archive = runtime.getInputArguments().stream()
+                .filter(arg -> arg.startsWith("-XX:SharedArchiveFile="))
+                .map(arg -> arg.substring(arg.indexOf('=') + 1))
+                .findFirst()
+                .orElse("none");
+        LOG.info("Ready to take work {} ms after JVM start (class data sharing archive: {})", timeToReady, archive);
+    }
+
+    @Bean
+    MeterBinder startupMetrics() {
+        return registry -> TimeGauge.builder(
+                        "transformer.startup.time",
+                        this,
+                        TimeUnit.MILLISECONDS,
+                        config -> config.timeToReady >= 0 ? config.timeToReady : Double.NaN)
+                .description("Time from JVM start until the application was ready to take work")
+                .register(registry);
+    }
+}
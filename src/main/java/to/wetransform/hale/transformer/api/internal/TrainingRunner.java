@@ -0,0 +1,79 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import com.google.common.base.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import to.wetransform.hale.transformer.RunContext;
+import to.wetransform.hale.transformer.Transformer;
+import to.wetransform.hale.transformer.api.Init;
+
+/**
+ * Training run for the class data sharing archive of the container image. It
+ * loads the classes needed for transformations, runs a sample transformation
+ * if one is configured and then exits, so the JVM can write the archive of all
+ * loaded classes. The exit code is non-zero if the sample transformation
+ * fails, so the image build fails instead of producing an incomplete archive.
+ */
+@Component
+@ConditionalOnProperty(name = "transformer.training.enabled", havingValue = "true")
+public class TrainingRunner implements ApplicationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrainingRunner.class);
+
+    @Value("${transformer.training.project:}")
+    private String project;
+
+    @Value("${transformer.training.source:}")
+    private String source;
+
+    private final ConfigurableApplicationContext context;
+
+    @Autowired
+    public TrainingRunner(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        LOG.info("Training run started");
+        Init.init();
+
+        int exitCode = runSample() ? 0 : 1;
+
+        LOG.info("Training run finished");
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    /**
+     * Run the sample transformation, if one is configured.
+     *
+     * @return <code>false</code> if the sample transformation failed
+     */
+    private boolean runSample() throws Exception {
+        if (Strings.isNullOrEmpty(project) || Strings.isNullOrEmpty(source)) {
+            return true;
+        }
+
+        RunContext runContext = new RunContext();
+        try {
+            Transformer tx = new Transformer("training", runContext);
+            tx.transform(source, project, "training-result.gml");
+            if (Boolean.TRUE.equals(tx.getSuccess())) {
+                LOG.info("Sample transformation finished in {} ms", tx.getElapsedTime());
+                return true;
+            }
+            LOG.error("Sample transformation of {} with project {} failed", source, project);
+            return false;
+        } finally {
+            runContext.cleanUp();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import java.nio.file.Path;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import to.wetransform.hale.transformer.WorkspaceManager;
+
+@Configuration
+public class WorkspaceConfig {
+    @Value("${transformer.workspace.dir}")
+    private String workspaceDir;
+
+    @Value("${transformer.workspace.quota}")
+    private long quota;
+
+    @Bean
+    WorkspaceManager workspaceManager() {
+        WorkspaceManager manager = new WorkspaceManager(Path.of(workspaceDir), quota);
+        // remove leftovers of a previous process
+        manager.cleanUpOrphans();
+        return manager;
+    }
+
+    @Bean
+    MeterBinder workspaceMetrics(WorkspaceManager workspaceManager) {
+        return registry -> {
+            Gauge.builder("transformer.workspace.used", workspaceManager, WorkspaceManager::getUsedBytes)
+                    .description("Disk space used by job workspaces")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            Gauge.builder("transformer.workspace.quota", workspaceManager, WorkspaceManager::getQuota)
+                    .description("Disk space job workspaces may use before jobs are rejected")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            Gauge.builder("transformer.workspace.usable", workspaceManager, WorkspaceManager::getUsableBytes)
+                    .description("Usable disk space on the workspace volume")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            Gauge.builder("transformer.workspace.jobs", workspaceManager, WorkspaceManager::getActiveJobs)
+                    .description("Jobs with an active workspace")
+                    .register(registry);
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${transformer.workspace.cleanup-interval}")
+    void cleanUpOrphans() {
+        workspaceManager().cleanUpOrphans();
+    }
+}
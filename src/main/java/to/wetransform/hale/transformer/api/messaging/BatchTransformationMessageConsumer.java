@@ -0,0 +1,337 @@
+package to.wetransform.hale.transformer.api.messaging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import eu.esdihumboldt.hale.app.transform.ExecContext;
+import eu.esdihumboldt.hale.common.core.io.supplier.DefaultInputSupplier;
+import eu.esdihumboldt.hale.common.headless.TransformationEnvironment;
+import eu.esdihumboldt.hale.common.headless.impl.ProjectTransformationEnvironment;
+import eu.esdihumboldt.hale.common.headless.report.ReportFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import to.wetransform.hale.transformer.MemoryAdmission;
+import to.wetransform.hale.transformer.RunContext;
+import to.wetransform.hale.transformer.Transformer;
+import to.wetransform.hale.transformer.WorkspaceManager;
+import to.wetransform.hale.transformer.WorkspaceQuotaExceededException;
+import to.wetransform.hale.transformer.api.Init;
+import to.wetransform.hale.transformer.api.TransformerApiApplication;
+import to.wetransform.hale.transformer.api.internal.BatchConfig;
+import to.wetransform.hale.transformer.api.internal.ConsumerPause;
+import to.wetransform.hale.transformer.api.internal.DrainService;
+import to.wetransform.hale.transformer.api.internal.S3Config;
+import to.wetransform.hale.transformer.api.messaging.TransformationProgressPublisher.BatchItemResult;
+import to.wetransform.hale.transformer.incremental.IncrementalStore;
+import to.wetransform.hale.transformer.io.s3.S3Service;
+
+/**
+ * Consumer for batches of source data that are transformed with the same
+ * project.
+ */
+@Service
+public class BatchTransformationMessageConsumer {
+    /**
+     * Batch of source data to transform with the same project
+     */
+    public record BatchTransformationMessage(
+            @JsonProperty("projectUrl") String projectUrl,
+            @JsonProperty("items") List<BatchItem> items,
+            @JsonProperty("parallelism") Integer parallelism,
+            @JsonProperty("s3Endpoint") String s3Endpoint,
+            @JsonProperty("s3Region") String s3Region,
+            @JsonProperty("s3BucketName") String s3BucketName,
+            @JsonProperty("s3AccessKey") String s3AccessKey,
+            @JsonProperty("s3SecretKey") String s3SecretKey,
+            @JsonProperty("jobId") String jobId,
+            @JsonProperty("incremental") boolean incremental)
+            implements S3Details, Serializable {}
+
+    /**
+     * A single source of a batch and the key to store its result at
+     */
+    public record BatchItem(
+            @JsonProperty("sourceDataUrl") String sourceDataUrl,
+            @JsonProperty("targetFileName") String targetFileName)
+            implements Serializable {}
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchTransformationMessageConsumer.class);
+
+    /**
+     * Time to wait before trying again to acquire a workspace for an item, in
+     * milliseconds
+     */
+    private static final long WORKSPACE_RETRY_INTERVAL = 5000;
+
+    private final BatchConfig config;
+
+    private final TransformationProgressPublisher progressPublisher;
+
+    private final IncrementalStore incrementalStore;
+
+    private final WorkspaceManager workspaceManager;
+
+    private final MemoryAdmission memoryAdmission;
+
+    private final DrainService drainService;
+
+    private final S3Config s3Config;
+
+    private final ConsumerPause consumerPause;
+
+    @Autowired
+    public BatchTransformationMessageConsumer(
+            BatchConfig config,
+            TransformationProgressPublisher progressPublisher,
+            IncrementalStore incrementalStore,
+            WorkspaceManager workspaceManager,
+            MemoryAdmission memoryAdmission,
+            DrainService drainService,
+            S3Config s3Config,
+            ConsumerPause consumerPause) {
+        this.config = config;
+        this.progressPublisher = progressPublisher;
+        this.incrementalStore = incrementalStore;
+        this.workspaceManager = workspaceManager;
+        this.memoryAdmission = memoryAdmission;
+        this.drainService = drainService;
+        this.s3Config = s3Config;
+        this.consumerPause = consumerPause;
+    }
+
+    @RabbitListener(queues = TransformerApiApplication.BATCH_QUEUE_NAME)
+    public void receiveMessage(final BatchTransformationMessage message) {
+        if (message.projectUrl() == null || message.items() == null || message.items().isEmpty()) {
+            LOG.error("Received incomplete batch message, projectUrl and items are required");
+            return;
+        }
+
+        String jobId = message.jobId() != null ? message.jobId() : UUID.randomUUID().toString();
+        int parallelism = message.parallelism() != null ? Math.max(1, message.parallelism()) : 1;
+        if (parallelism > config.getMaxParallelism()) {
+            LOG.info(
+                    "Limiting parallelism of batch {} from {} to {}", jobId, parallelism, config.getMaxParallelism());
+            parallelism = Math.max(1, config.getMaxParallelism());
+        }
+        LOG.info(
+                "Received batch {} with {} items for projectUrl = {}",
+                jobId,
+                message.items().size(),
+                message.projectUrl());
+
+        if (consumerPause.isPaused()) {
+            // delivered before the consumer was stopped
+            throw new ImmediateRequeueAmqpException("Consumption is paused, returning batch " + jobId);
+        }
+
+        RunContext runContext;
+        try {
+            runContext = workspaceManager.acquire(jobId);
+        } catch (WorkspaceQuotaExceededException e) {
+            // leave the message to other nodes until space is freed
+            LOG.warn("Rejecting batch " + jobId + ": " + e.getMessage());
+            consumerPause.pause(e.getMessage());
+            throw new ImmediateRequeueAmqpException("No workspace available for batch " + jobId, e);
+        } catch (IOException e) {
+            // return the message to the queue so another node can take it
+            LOG.warn("Rejecting batch " + jobId + ": " + e.getMessage());
+            throw new ImmediateRequeueAmqpException("No workspace available for batch " + jobId, e);
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<BatchItemResult> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            Init.init();
+
+            // load the project, its schemas and alignment only once for all
+            // items
+            String projectUrl = prepareProject(message.projectUrl(), runContext);
+            TransformationEnvironment environment = new ProjectTransformationEnvironment(
+                    jobId,
+                    new DefaultInputSupplier(URI.create(projectUrl)),
+                    new ReportFile(new File(runContext.createTempDir(), "project-reports.log")));
+            // the digest identifies the project in the incremental store
+            String projectDigest = message.incremental() ? IncrementalStore.digest(URI.create(projectUrl)) : null;
+
+            List<Future<BatchItemResult>> futures = new ArrayList<>();
+            for (int i = 0; i < message.items().size(); i++) {
+                String itemJobId = jobId + "-" + i;
+                BatchItem item = message.items().get(i);
+                futures.add(executor.submit(
+                        () -> transformItem(itemJobId, item, projectUrl, environment, projectDigest, message)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    BatchItem item = message.items().get(i);
+                    LOG.error("Batch item " + i + " failed: " + e.getMessage(), e);
+                    results.add(new BatchItemResult(
+                            jobId + "-" + i, item.sourceDataUrl(), item.targetFileName(), false, 0, -1, null));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Batch " + jobId + " was interrupted", e);
+        } catch (Throwable t) {
+            LOG.error("Failed to execute batch " + jobId + ": " + t.getMessage(), t);
+        } finally {
+            executor.shutdownNow();
+            workspaceManager.release(jobId);
+        }
+
+        if (drainService.isGracePeriodExpired()) {
+            // requeue the batch explicitly, as the channel may still be open
+            // and would otherwise acknowledge the message
+            LOG.warn("Not publishing result of batch {}, the drain grace period has passed", jobId);
+            throw new ImmediateRequeueAmqpException("Drain grace period passed, returning batch " + jobId);
+        }
+        progressPublisher.publishBatchResult(jobId, results, System.currentTimeMillis() - startTime);
+    }
+
+    private BatchItemResult transformItem(
+            String jobId,
+            BatchItem item,
+            String projectUrl,
+            TransformationEnvironment environment,
+            String projectDigest,
+            BatchTransformationMessage message)
+            throws WorkspaceQuotaExceededException, IOException, InterruptedException {
+        // items share the heap with other jobs, wait until their estimate fits
+        long sourceSize = Transformer.determineSourceSize(URI.create(item.sourceDataUrl()));
+        if (!memoryAdmission.admit(jobId, sourceSize, config.getMemoryWait())) {
+            throw new IllegalStateException("Estimated heap of " + memoryAdmission.estimateHeap(sourceSize)
+                    + " bytes did not become available for batch item " + jobId);
+        }
+        try {
+            return runItem(jobId, item, projectUrl, environment, projectDigest, message);
+        } finally {
+            memoryAdmission.release(jobId);
+        }
+    }
+
+    private BatchItemResult runItem(
+            String jobId,
+            BatchItem item,
+            String projectUrl,
+            TransformationEnvironment environment,
+            String projectDigest,
+            BatchTransformationMessage message)
+            throws WorkspaceQuotaExceededException, IOException, InterruptedException {
+        // each item has its own workspace, so it can be removed once the result
+        // is uploaded
+        RunContext runContext = acquireWorkspace(jobId);
+        Transformer tx = new Transformer(jobId, runContext);
+        tx.setEnvironment(environment);
+        if (message.incremental()) {
+            tx.setIncrementalStore(incrementalStore);
+            tx.setProjectDigest(projectDigest);
+        }
+        String outputLocation = null;
+
+        progressPublisher.register(tx);
+        try {
+            progressPublisher.publishProgress(tx);
+            tx.transform(item.sourceDataUrl(), projectUrl, item.targetFileName(), environment.getProject());
+
+            ExecContext execContext = tx.getExecContext();
+            if (drainService.isGracePeriodExpired()) {
+                // the batch is transformed again by another node
+                LOG.warn("Discarding result of batch item {}, the drain grace period has passed", jobId);
+            } else if (execContext != null && execContext.getTarget() != null) {
+                File resultFile = Paths.get(execContext.getTarget()).toFile();
+
+                if (message.hasS3Details() && resultFile.exists()) {
+                    try (S3Service s3 = message.buildS3Service(s3Config.isPathStyleAccess())) {
+                        s3.putObject(message.s3BucketName(), item.targetFileName(), resultFile);
+                        outputLocation = "s3://" + message.s3BucketName() + "/" + item.targetFileName();
+                    } catch (Throwable t) {
+                        LOG.error("Error uploading result of batch item " + jobId + ": " + t.getMessage(), t);
+                    }
+                }
+            }
+        } finally {
+            progressPublisher.unregister(tx);
+            workspaceManager.release(jobId);
+        }
+        if (!drainService.isGracePeriodExpired()) {
+            progressPublisher.publishResult(tx, outputLocation);
+        }
+
+        return new BatchItemResult(
+                jobId,
+                item.sourceDataUrl(),
+                item.targetFileName(),
+                Boolean.TRUE.equals(tx.getSuccess()),
+                tx.getElapsedTime(),
+                tx.getInstancesWritten(),
+                outputLocation);
+    }
+
+    /**
+     * Acquire the workspace for a batch item, waiting for other items or jobs
+     * to free space if the quota is exhausted.
+     */
+    private RunContext acquireWorkspace(String jobId)
+            throws WorkspaceQuotaExceededException, IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + config.getWorkspaceWait();
+        while (true) {
+            try {
+                return workspaceManager.acquire(jobId);
+            } catch (WorkspaceQuotaExceededException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw e;
+                }
+                LOG.info("Waiting for workspace for batch item {}: {}", jobId, e.getMessage());
+                Thread.sleep(WORKSPACE_RETRY_INTERVAL);
+            }
+        }
+    }
+
+    /**
+     * Make the project available for the batch. Project archives are
+     * self-contained and are downloaded once, other projects may reference
+     * files relative to their location and are used as is.
+     *
+     * @param projectUrl the project location
+     * @param runContext the context for temporary files
+     * @return the project location to use for the batch
+     */
+    private String prepareProject(String projectUrl, RunContext runContext) {
+        URI projectUri = URI.create(projectUrl);
+        boolean archive = projectUri.getPath() != null
+                && projectUri.getPath().toLowerCase().endsWith(".halez");
+        if (!archive || "file".equalsIgnoreCase(projectUri.getScheme())) {
+            return projectUrl;
+        }
+
+        try (InputStream in = new DefaultInputSupplier(projectUri).getInput()) {
+            File projectFile = new File(runContext.createTempDir(), "project.halez");
+            Files.copy(in, projectFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return projectFile.toURI().toString();
+        } catch (Exception e) {
+            LOG.warn("Could not download project archive, using remote location", e);
+            return projectUrl;
+        }
+    }
+}
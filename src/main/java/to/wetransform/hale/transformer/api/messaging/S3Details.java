@@ -0,0 +1,47 @@
+package to.wetransform.hale.transformer.api.messaging;
+
+import java.net.URI;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.regions.Region;
+import to.wetransform.hale.transformer.io.s3.S3Service;
+
+/**
+ * S3 connection details that are part of a message.
+ */
+public interface S3Details {
+
+    String s3Endpoint();
+
+    String s3Region();
+
+    String s3BucketName();
+
+    String s3AccessKey();
+
+    String s3SecretKey();
+
+    default boolean hasS3Details() {
+        return s3Region() != null && s3BucketName() != null && s3AccessKey() != null && s3SecretKey() != null;
+    }
+
+    /**
+     * Create an S3 service from the connection details.
+     *
+     * @param pathStyleAccess if objects are addressed path-style
+     * @return the S3 service
+     * @throws IllegalArgumentException if the endpoint is not a valid URI
+     */
+    default S3Service buildS3Service(boolean pathStyleAccess) throws IllegalArgumentException {
+        URI endpoint = null;
+        if (s3Endpoint() != null) {
+            endpoint = URI.create(s3Endpoint());
+        }
+
+        return new S3Service(
+                Region.of(s3Region()),
+                AwsBasicCredentials.create(s3AccessKey(), s3SecretKey()),
+                endpoint,
+                pathStyleAccess);
+    }
+}
@@ -0,0 +1,396 @@
+package to.wetransform.hale.transformer.api.messaging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import to.wetransform.hale.transformer.MemoryAdmission;
+import to.wetransform.hale.transformer.RunContext;
+import to.wetransform.hale.transformer.api.TransformerApiApplication;
+import to.wetransform.hale.transformer.api.internal.S3Config;
+import to.wetransform.hale.transformer.api.internal.ShardingConfig;
+import to.wetransform.hale.transformer.api.messaging.TransformationMessageConsumer.TransformationMessage;
+import to.wetransform.hale.transformer.api.messaging.TransformationProgressPublisher.TransformationResultMessage;
+import to.wetransform.hale.transformer.gml.FeatureFingerprint;
+import to.wetransform.hale.transformer.gml.GmlFeatures;
+import to.wetransform.hale.transformer.gml.SourceScan;
+import to.wetransform.hale.transformer.io.s3.S3Service;
+import to.wetransform.hale.transformer.sharding.ShardPlan;
+import to.wetransform.hale.transformer.sharding.ShardPlanner;
+
+/**
+ * Splits the source of a large transformation job into shards, publishes them
+ * as separate jobs for other nodes and merges their results.
+ */
+@Service
+public class ShardCoordinator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardCoordinator.class);
+
+    /**
+     * Maximum validity of presigned S3 URLs
+     */
+    private static final Duration MAX_URL_VALIDITY = Duration.ofDays(7);
+
+    private final ShardingConfig config;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final AmqpAdmin amqpAdmin;
+
+    private final TransformationProgressPublisher progressPublisher;
+
+    private final S3Config s3Config;
+
+    private final MemoryAdmission memoryAdmission;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static class Shard {
+        final int index;
+        final String jobId;
+        final String sourceKey;
+        final String resultKey;
+        String sourceUrl;
+        int attempts;
+        long deadline;
+        TransformationResultMessage result;
+
+        Shard(int index, String jobId, String sourceKey, String resultKey) {
+            this.index = index;
+            this.jobId = jobId;
+            this.sourceKey = sourceKey;
+            this.resultKey = resultKey;
+        }
+    }
+
+    @Autowired
+    public ShardCoordinator(
+            ShardingConfig config,
+            RabbitTemplate rabbitTemplate,
+            AmqpAdmin amqpAdmin,
+            TransformationProgressPublisher progressPublisher,
+            S3Config s3Config,
+            MemoryAdmission memoryAdmission) {
+        this.config = config;
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.progressPublisher = progressPublisher;
+        this.s3Config = s3Config;
+        this.memoryAdmission = memoryAdmission;
+    }
+
+    /**
+     * Determine if a transformation job should be split into shards.
+     *
+     * @param message the transformation message
+     * @param scan the scan of the source data
+     * @return if the job should be split
+     */
+    public boolean shouldShard(TransformationMessage message, SourceScan scan) {
+        if (!config.isEnabled() || message.shardOf() != null || message.incremental() || !message.hasS3Details()) {
+            // shards are exchanged via S3
+            return false;
+        }
+
+        return scan.byteSize() >= config.getThreshold() && scan.featureCount() >= 2;
+    }
+
+    /**
+     * Run a transformation job split into shards and publish its result.
+     *
+     * <p>While the shards are planned, the heap reservation of the job is
+     * replaced by one for the feature fingerprints; it is released once the
+     * plan is done, as the shards reserve heap where they are transformed.
+     *
+     * @param message the transformation message
+     * @param jobId the identifier of the job
+     * @param runContext the context for temporary files
+     * @param scan the scan of the source data, with the location of a local
+     *            copy
+     * @return <code>true</code> if the job was handled, <code>false</code> if
+     *         the source cannot be split or the shard results cannot be
+     *         merged, and the job has to be transformed as a whole
+     * @throws IOException if the source cannot be read
+     */
+    public boolean coordinate(TransformationMessage message, String jobId, RunContext runContext, SourceScan scan)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        Map<String, Long> timings = new LinkedHashMap<>();
+        File workDir = runContext.createTempDir();
+
+        // if the smaller reservation is rejected, the job keeps its previous one
+        memoryAdmission.reserveHeap(jobId, scan.featureCount() * config.getPlanningHeapPerFeature());
+
+        Path source = Path.of(scan.location());
+        Map<String, FeatureFingerprint> features;
+        try {
+            features = GmlFeatures.fingerprint(source);
+        } catch (Exception e) {
+            LOG.warn("Could not analyse source of job {}, not splitting it: {}", jobId, e.getMessage());
+            return false;
+        }
+        if (features == null || features.size() < 2) {
+            // features need identifiers to be assigned to shards
+            LOG.info("Source of job {} cannot be split into shards", jobId);
+            return false;
+        }
+
+        long size = scan.byteSize();
+        int shardCount = (int) Math.min(
+                config.getMaxShards(), Math.max(2, (size + config.getShardSize() - 1) / config.getShardSize()));
+        ShardPlan plan = new ShardPlanner(config.getHubDegree()).plan(features, shardCount);
+        LOG.info(
+                "Splitting job {} with {} features into {} shards, {} features are part of every shard",
+                jobId,
+                features.size(),
+                shardCount,
+                plan.sharedFeatures().size());
+        // the fingerprints are not needed anymore
+        features = null;
+        memoryAdmission.release(jobId);
+
+        String prefix = message.s3ResultKey() + ".shards/" + jobId + "/";
+        List<Shard> shards = new ArrayList<>();
+        boolean success = false;
+        boolean fallback = false;
+        String outputLocation = null;
+        long instances = -1;
+
+        Queue results = new AnonymousQueue();
+        amqpAdmin.declareQueue(results);
+        try (S3Service s3 = message.buildS3Service(s3Config.isPathStyleAccess())) {
+            // partition the source and make the shards available to other nodes
+            Duration validity = Duration.ofMillis(config.getShardTimeout() * (config.getMaxRetries() + 1L));
+            if (validity.compareTo(MAX_URL_VALIDITY) > 0) {
+                validity = MAX_URL_VALIDITY;
+            }
+            for (int i = 0; i < shardCount; i++) {
+                Shard shard = new Shard(
+                        i, jobId + "-shard-" + i, prefix + "source-" + i + ".gml", prefix + "result-" + i + ".gml");
+                final int index = i;
+                Path shardFile = workDir.toPath().resolve("source-" + i + ".gml");
+                GmlFeatures.filter(source, shardFile, id -> id == null || plan.includes(index, id));
+                s3.putObject(message.s3BucketName(), shard.sourceKey, shardFile.toFile());
+                Files.delete(shardFile);
+                shard.sourceUrl = s3.presignGetObject(message.s3BucketName(), shard.sourceKey, validity)
+                        .toString();
+
+                amqpAdmin.declareBinding(BindingBuilder.bind(results)
+                        .to(new TopicExchange(TransformerApiApplication.PROGRESS_EXCHANGE_NAME))
+                        .with(TransformationProgressPublisher.RESULT_ROUTING_KEY_PREFIX + shard.jobId));
+                shards.add(shard);
+            }
+            timings.put("PARTITION", System.currentTimeMillis() - start);
+
+            long shardsStart = System.currentTimeMillis();
+            for (Shard shard : shards) {
+                publishShard(message, jobId, shard);
+            }
+            boolean complete = awaitShards(message, jobId, shards, results.getName());
+            timings.put("SHARDS", System.currentTimeMillis() - shardsStart);
+
+            if (complete) {
+                long mergeStart = System.currentTimeMillis();
+                List<Path> resultFiles = new ArrayList<>();
+                boolean retainsIds = true;
+                for (Shard shard : shards) {
+                    Path resultFile = workDir.toPath().resolve("result-" + shard.index + ".gml");
+                    s3.getObject(message.s3BucketName(), shard.resultKey, resultFile.toFile());
+                    resultFiles.add(resultFile);
+                    if (!plan.retainsIds(shard.index, GmlFeatures.featureIds(resultFile))) {
+                        retainsIds = false;
+                    }
+                }
+
+                if (!retainsIds) {
+                    // copies of shared features cannot be recognized
+                    LOG.warn("Transformation of job {} does not retain feature identifiers, cannot merge", jobId);
+                    fallback = true;
+                } else if (!sharedCopiesMatch(plan, resultFiles)) {
+                    // the result of a shared feature depends on the features
+                    // of the shard, so no single copy is complete
+                    LOG.warn(
+                            "Shared features of job {} were transformed differently in the shards, cannot merge",
+                            jobId);
+                    fallback = true;
+                } else {
+                    // combine the shard results, features that were part of
+                    // several shards are only retained once
+                    Set<String> seen = new HashSet<>();
+                    Path merged = workDir.toPath().resolve("result.gml");
+                    GmlFeatures.merge(
+                            resultFiles.get(0),
+                            id -> id == null || seen.add(id),
+                            resultFiles.subList(1, resultFiles.size()),
+                            id -> id == null || seen.add(id),
+                            merged);
+                    instances = GmlFeatures.countFeatures(merged);
+
+                    s3.putObject(message.s3BucketName(), message.s3ResultKey(), merged.toFile());
+                    outputLocation = "s3://" + message.s3BucketName() + "/" + message.s3ResultKey();
+                    success = true;
+                }
+                timings.put("MERGE", System.currentTimeMillis() - mergeStart);
+            }
+
+            for (Shard shard : shards) {
+                deleteQuietly(s3, message.s3BucketName(), shard.sourceKey);
+                deleteQuietly(s3, message.s3BucketName(), shard.resultKey);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Sharded job " + jobId + " was interrupted", e);
+        } catch (Exception e) {
+            LOG.error("Sharded job " + jobId + " failed: " + e.getMessage(), e);
+        } finally {
+            amqpAdmin.deleteQueue(results.getName());
+        }
+
+        if (fallback) {
+            LOG.info("Transforming job {} as a whole", jobId);
+            return false;
+        }
+
+        progressPublisher.publishResult(
+                jobId, success, timings, System.currentTimeMillis() - start, instances, outputLocation);
+        return true;
+    }
+
+    /**
+     * Determine if the copies of the shared features are the same in all shard
+     * results, so any of them can be kept when merging.
+     */
+    private static boolean sharedCopiesMatch(ShardPlan plan, List<Path> resultFiles)
+            throws IOException, XMLStreamException {
+        Map<String, String> hashes = new HashMap<>();
+        for (Path resultFile : resultFiles) {
+            for (Map.Entry<String, String> copy :
+                    GmlFeatures.contentHashes(resultFile, plan.sharedFeatures()).entrySet()) {
+                String previous = hashes.putIfAbsent(copy.getKey(), copy.getValue());
+                if (previous != null && !previous.equals(copy.getValue())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait for the results of all shards, publishing failed or timed out shards
+     * again.
+     *
+     * @return <code>true</code> if all shards finished successfully,
+     *         <code>false</code> if a shard failed too often
+     */
+    private boolean awaitShards(
+            TransformationMessage message, String jobId, List<Shard> shards, String queueName) throws InterruptedException {
+        Map<String, Shard> byJobId = new LinkedHashMap<>();
+        shards.forEach(shard -> byJobId.put(shard.jobId, shard));
+        int remaining = shards.size();
+
+        while (remaining > 0) {
+            Message received = rabbitTemplate.receive(queueName, 1000);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (received != null) {
+                TransformationResultMessage result;
+                try {
+                    result = mapper.readValue(received.getBody(), TransformationResultMessage.class);
+                } catch (IOException e) {
+                    LOG.warn("Ignoring unreadable result message for job {}", jobId, e);
+                    continue;
+                }
+
+                Shard shard = byJobId.get(result.jobId());
+                if (shard == null || shard.result != null) {
+                    continue;
+                }
+                if (result.success() && result.outputLocation() != null) {
+                    shard.result = result;
+                    remaining--;
+                    LOG.info("Shard {} of job {} finished, {} remaining", shard.index, jobId, remaining);
+                } else if (!retry(message, jobId, shard, "failed")) {
+                    return false;
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            for (Shard shard : shards) {
+                if (shard.result == null
+                        && now > shard.deadline
+                        && !retry(message, jobId, shard, "timed out")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean retry(TransformationMessage message, String jobId, Shard shard, String reason) {
+        if (shard.attempts > config.getMaxRetries()) {
+            LOG.error("Shard {} of job {} {}, giving up after {} attempts", shard.index, jobId, reason, shard.attempts);
+            return false;
+        }
+        LOG.warn("Shard {} of job {} {}, publishing it again", shard.index, jobId, reason);
+        publishShard(message, jobId, shard);
+        return true;
+    }
+
+    private void publishShard(TransformationMessage message, String jobId, Shard shard) {
+        TransformationMessage shardMessage = new TransformationMessage(
+                message.projectUrl(),
+                shard.sourceUrl,
+                Path.of(message.targetFileName()).getFileName().toString(),
+                message.s3Endpoint(),
+                message.s3Region(),
+                message.s3BucketName(),
+                message.s3AccessKey(),
+                message.s3SecretKey(),
+                shard.jobId,
+                message.profile(),
+                false,
+                jobId,
+                shard.resultKey);
+
+        shard.attempts++;
+        shard.deadline = System.currentTimeMillis() + config.getShardTimeout();
+        rabbitTemplate.convertAndSend(
+                TransformerApiApplication.TOPIC_EXCHANGE_NAME,
+                TransformerApiApplication.SHARD_ROUTING_KEY_PREFIX + jobId,
+                shardMessage);
+    }
+
+    private static void deleteQuietly(S3Service s3, String bucketName, String key) {
+        try {
+            s3.deleteObject(bucketName, key);
+        } catch (Exception e) {
+            LOG.warn("Could not delete shard object {}: {}", key, e.getMessage());
+        }
+    }
+}
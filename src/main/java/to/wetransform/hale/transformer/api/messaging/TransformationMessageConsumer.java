@@ -1,23 +1,40 @@
 package to.wetransform.hale.transformer.api.messaging;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URI;
 import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import eu.esdihumboldt.hale.app.transform.ExecContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.regions.Region;
+import to.wetransform.hale.transformer.JobRecording;
+import to.wetransform.hale.transformer.MemoryAdmission;
+import to.wetransform.hale.transformer.RunContext;
 import to.wetransform.hale.transformer.TargetConfig;
 import to.wetransform.hale.transformer.Transformer;
+import to.wetransform.hale.transformer.WorkspaceManager;
+import to.wetransform.hale.transformer.WorkspaceQuotaExceededException;
 import to.wetransform.hale.transformer.api.TransformerApiApplication;
 import to.wetransform.hale.transformer.api.internal.CountdownLatchConfig;
+import to.wetransform.hale.transformer.api.internal.ConsumerPause;
+import to.wetransform.hale.transformer.api.internal.DrainService;
+import to.wetransform.hale.transformer.api.internal.S3Config;
+import to.wetransform.hale.transformer.gml.SourceScan;
+import to.wetransform.hale.transformer.incremental.IncrementalStore;
 import to.wetransform.hale.transformer.io.s3.S3Service;
 
 @Service
@@ -33,11 +50,20 @@ public class TransformationMessageConsumer {
             @JsonProperty("s3Region") String s3Region,
             @JsonProperty("s3BucketName") String s3BucketName,
             @JsonProperty("s3AccessKey") String s3AccessKey,
-            @JsonProperty("s3SecretKey") String s3SecretKey)
-            implements Serializable {
+            @JsonProperty("s3SecretKey") String s3SecretKey,
+            @JsonProperty("jobId") String jobId,
+            @JsonProperty("profile") boolean profile,
+            @JsonProperty("incremental") boolean incremental,
+            @JsonProperty("shardOf") String shardOf,
+            @JsonProperty("resultKey") String resultKey)
+            implements S3Details, Serializable {
 
-        public boolean hasS3Details() {
-            return s3Region != null && s3BucketName != null && s3AccessKey != null && s3SecretKey != null;
+        /**
+         * @return the key to store the result at in the S3 bucket, the target
+         *         file name unless a different key is given
+         */
+        public String s3ResultKey() {
+            return resultKey != null ? resultKey : targetFileName;
         }
     }
 
@@ -45,9 +71,52 @@ public class TransformationMessageConsumer {
 
     private final CountdownLatchConfig countdownLatchConfig;
 
+    private final TransformationProgressPublisher progressPublisher;
+
+    private final IncrementalStore incrementalStore;
+
+    private final WorkspaceManager workspaceManager;
+
+    private final ShardCoordinator shardCoordinator;
+
+    private final MemoryAdmission memoryAdmission;
+
+    private final DrainService drainService;
+
+    private final S3Config s3Config;
+
+    private final ConsumerPause consumerPause;
+
     @Autowired
-    public TransformationMessageConsumer(CountdownLatchConfig countdownLatchConfig) {
+    public TransformationMessageConsumer(
+            CountdownLatchConfig countdownLatchConfig,
+            TransformationProgressPublisher progressPublisher,
+            IncrementalStore incrementalStore,
+            WorkspaceManager workspaceManager,
+            ShardCoordinator shardCoordinator,
+            MemoryAdmission memoryAdmission,
+            DrainService drainService,
+            S3Config s3Config,
+            ConsumerPause consumerPause) {
         this.countdownLatchConfig = countdownLatchConfig;
+        this.progressPublisher = progressPublisher;
+        this.incrementalStore = incrementalStore;
+        this.workspaceManager = workspaceManager;
+        this.shardCoordinator = shardCoordinator;
+        this.memoryAdmission = memoryAdmission;
+        this.drainService = drainService;
+        this.s3Config = s3Config;
+        this.consumerPause = consumerPause;
+    }
+
+    /**
+     * Receive the shards of jobs split by a coordinating node. They have their
+     * own listener, so they are transformed even if all nodes are busy
+     * coordinating jobs.
+     */
+    @RabbitListener(queues = TransformerApiApplication.SHARD_QUEUE_NAME)
+    public void receiveShardMessage(final TransformationMessage message) {
+        receiveMessage(message);
     }
 
     @RabbitListener(queues = TransformerApiApplication.QUEUE_NAME)
@@ -58,49 +127,186 @@ public class TransformationMessageConsumer {
         // TODO Implement mechanism to only accept a message from the queue if no
         // transformation is currently running
         if (message.projectUrl != null && message.sourceDataUrl() != null && message.targetFileName != null) {
-            Transformer tx = new Transformer();
+            String jobId = message.jobId() != null ? message.jobId() : UUID.randomUUID().toString();
 
-            try {
-                LOG.info("Transformation started");
-                tx.transform(message.sourceDataUrl(), message.projectUrl, message.targetFileName);
-                tx.getLatch().await(countdownLatchConfig.getWaitingTime(), TimeUnit.MINUTES);
-            } catch (InterruptedException e) {
-                // TODO What should be done when the transformation fails or times out?
-                // - Simply requeuing the message is probably not helpful
-                // - Send a message back so that the producer can react?
-                Thread.currentThread().interrupt();
-                LOG.error("Transformation process timed out: " + e.getMessage(), e);
-                return;
+            if (consumerPause.isPaused()) {
+                // delivered before the consumer was stopped
+                throw new ImmediateRequeueAmqpException("Consumption is paused, returning job " + jobId);
+            }
+
+            // reserve heap before the source is downloaded, so a job that does
+            // not fit is returned before it uses any resources
+            long sourceSize = Transformer.determineSourceSize(URI.create(message.sourceDataUrl()));
+            if (sourceSize >= 0) {
+                admit(jobId, sourceSize);
             }
 
-            if (message.hasS3Details()) {
-                try (S3Service s3 = buildS3Service(message)) {
-                    ExecContext execContext = tx.getExecContext();
-                    TargetConfig targetConfig = tx.getTargetConfig();
-                    if (execContext != null && targetConfig != null) {
-                        URI target = execContext.getTarget();
-                        s3.putObject(
-                                message.s3BucketName,
-                                message.targetFileName,
-                                Paths.get(target).toFile());
+            try {
+                RunContext runContext;
+                try {
+                    runContext = workspaceManager.acquire(jobId);
+                } catch (WorkspaceQuotaExceededException e) {
+                    // leave the message to other nodes until space is freed
+                    LOG.warn("Rejecting job " + jobId + ": " + e.getMessage());
+                    consumerPause.pause(e.getMessage());
+                    throw new ImmediateRequeueAmqpException("No workspace available for job " + jobId, e);
+                } catch (IOException e) {
+                    // return the message to the queue so another node can take it
+                    LOG.warn("Rejecting job " + jobId + ": " + e.getMessage());
+                    throw new ImmediateRequeueAmqpException("No workspace available for job " + jobId, e);
+                }
+
+                try {
+                    SourceScan scan = scanSource(message, jobId, runContext);
+                    if (scan != null && scan.byteSize() != sourceSize) {
+                        // the size is only known after the download, or the
+                        // server reported a different size
+                        admit(jobId, scan.byteSize());
                     }
-                } catch (Throwable t) {
-                    LOG.error("Error uploading result: " + t.getMessage(), t);
-                    // TODO What now? Should the result just be discarded? Should we send a message back?
+
+                    if (scan != null && shardCoordinator.shouldShard(message, scan)) {
+                        // the coordinator adjusts the heap reservation of the job
+                        try {
+                            if (shardCoordinator.coordinate(message, jobId, runContext, scan)) {
+                                return;
+                            }
+                        } catch (IOException e) {
+                            LOG.error("Could not split job " + jobId + " into shards: " + e.getMessage(), e);
+                        }
+                        admit(jobId, scan.byteSize());
+                    }
+
+                    transform(message, jobId, runContext, scan);
+                } finally {
+                    workspaceManager.release(jobId);
                 }
+            } finally {
+                memoryAdmission.release(jobId);
             }
         }
     }
 
-    private static S3Service buildS3Service(TransformationMessage message) throws IllegalArgumentException {
-        URI endpoint = null;
-        if (message.s3Endpoint != null) {
-            endpoint = URI.create(message.s3Endpoint);
+    /**
+     * Reserve heap for a job or return it to the queue. Consumption is paused
+     * until the heap is available, so the job is left to other nodes instead
+     * of being redelivered to this node right away.
+     */
+    private void admit(String jobId, long sourceSize) {
+        if (!memoryAdmission.admit(jobId, sourceSize)) {
+            String reason = "estimated heap of " + memoryAdmission.estimateHeap(sourceSize)
+                    + " bytes is not available for job " + jobId;
+            LOG.warn("Rejecting job {}: {}", jobId, reason);
+            consumerPause.pause(reason);
+            throw new ImmediateRequeueAmqpException("Not enough memory available for job " + jobId);
+        }
+    }
+
+    private SourceScan scanSource(TransformationMessage message, String jobId, RunContext runContext) {
+        try {
+            return Transformer.scanSource(URI.create(message.sourceDataUrl()), runContext.createTempDir());
+        } catch (IOException e) {
+            LOG.warn("Could not scan source of job " + jobId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void transform(TransformationMessage message, String jobId, RunContext runContext, SourceScan scan) {
+        Transformer tx = new Transformer(jobId, runContext);
+        tx.setSourceScan(scan);
+        if (message.incremental()) {
+            tx.setIncrementalStore(incrementalStore);
+        }
+
+        JobRecording recording = null;
+        if (message.profile()) {
+            try {
+                recording = JobRecording.start(jobId);
+            } catch (Exception e) {
+                LOG.warn("Could not start flight recording for job " + jobId, e);
+            }
+        }
+
+        String outputLocation = null;
+        progressPublisher.register(tx);
+        // the transformation runs on its own thread, so it can be abandoned
+        // when it does not finish within the waiting time
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transformation-" + jobId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        Future<?> run = null;
+        try {
+            LOG.info("Transformation started");
+            progressPublisher.publishProgress(tx);
+            run = executor.submit(
+                    () -> tx.transform(message.sourceDataUrl(), message.projectUrl, message.targetFileName));
+            run.get(countdownLatchConfig.getWaitingTime(), TimeUnit.MINUTES);
+        } catch (InterruptedException | TimeoutException | ExecutionException e) {
+            // TODO What should be done when the transformation fails or times out?
+            // - Simply requeuing the message is probably not helpful
+            // - Send a message back so that the producer can react?
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (run != null) {
+                // the workspace and heap reservation are released by the caller
+                run.cancel(true);
+            }
+            LOG.error("Transformation process of job {} did not finish: {}", jobId, e.toString(), e);
+            if (recording != null) {
+                recording.close();
+            }
+            progressPublisher.unregister(tx);
+            progressPublisher.publishResult(tx, null);
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (drainService.isGracePeriodExpired()) {
+            // the job is transformed again by another node; requeue the message
+            // explicitly, as the channel may still be open and would otherwise
+            // acknowledge it
+            LOG.warn("Discarding result of job {}, the drain grace period has passed", jobId);
+            if (recording != null) {
+                recording.close();
+            }
+            progressPublisher.unregister(tx);
+            throw new ImmediateRequeueAmqpException("Drain grace period passed, returning job " + jobId);
         }
 
-        return new S3Service(
-                Region.of(message.s3Region),
-                AwsBasicCredentials.create(message.s3AccessKey, message.s3SecretKey),
-                endpoint);
+        if (message.hasS3Details()) {
+            try (S3Service s3 = message.buildS3Service(s3Config.isPathStyleAccess())) {
+                ExecContext execContext = tx.getExecContext();
+                TargetConfig targetConfig = tx.getTargetConfig();
+                if (execContext != null && targetConfig != null) {
+                    URI target = execContext.getTarget();
+                    s3.putObject(message.s3BucketName, message.s3ResultKey(), Paths.get(target).toFile());
+                    outputLocation = "s3://" + message.s3BucketName + "/" + message.s3ResultKey();
+                }
+
+                if (recording != null && execContext != null) {
+                    // upload the recording next to the result
+                    File resultDir = Paths.get(execContext.getTarget()).toFile().getParentFile();
+                    File recordingFile = recording.stopAndDump(resultDir);
+                    s3.putObject(message.s3BucketName, message.s3ResultKey() + ".jfr", recordingFile);
+                }
+            } catch (Throwable t) {
+                LOG.error("Error uploading result: " + t.getMessage(), t);
+                // TODO What now? Should the result just be discarded? Should we send a message back?
+            }
+        }
+
+        if (recording != null) {
+            recording.close();
+        }
+
+        LOG.info("Job {} used {} bytes of workspace", jobId, workspaceManager.getUsedBytes(jobId));
+
+        // the local result is removed with the workspace, so only uploaded
+        // results have a location
+        progressPublisher.unregister(tx);
+        progressPublisher.publishResult(tx, outputLocation);
     }
 }
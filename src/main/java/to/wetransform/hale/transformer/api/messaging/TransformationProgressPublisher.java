@@ -0,0 +1,253 @@
+package to.wetransform.hale.transformer.api.messaging;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import to.wetransform.hale.transformer.TransformationStage;
+import to.wetransform.hale.transformer.Transformer;
+import to.wetransform.hale.transformer.api.TransformerApiApplication;
+
+/**
+ * Publishes progress and result messages of running transformations to the
+ * progress exchange.
+ */
+@Service
+public class TransformationProgressPublisher {
+
+    /**
+     * Periodic heartbeat of a running transformation job.
+     */
+    public record TransformationProgressMessage(
+            @JsonProperty("jobId") String jobId,
+            @JsonProperty("stage") String stage,
+            @JsonProperty("instancesProcessed") long instancesProcessed,
+            @JsonProperty("instancesPerSecond") double instancesPerSecond,
+            @JsonProperty("bytesWritten") long bytesWritten,
+            @JsonProperty("bytesPerSecond") double bytesPerSecond,
+            @JsonProperty("elapsedMillis") long elapsedMillis,
+            @JsonProperty("timestamp") long timestamp)
+            implements Serializable {}
+
+    /**
+     * Final message of a transformation job.
+     */
+    public record TransformationResultMessage(
+            @JsonProperty("jobId") String jobId,
+            @JsonProperty("success") boolean success,
+            @JsonProperty("stats") Map<String, Object> stats,
+            @JsonProperty("stageTimings") Map<String, Long> stageTimings,
+            @JsonProperty("elapsedMillis") long elapsedMillis,
+            @JsonProperty("instancesProcessed") long instancesProcessed,
+            @JsonProperty("instancesPerSecond") double instancesPerSecond,
+            @JsonProperty("outputLocation") String outputLocation,
+            @JsonProperty("timestamp") long timestamp)
+            implements Serializable {}
+
+    /**
+     * Result of a single item of a batch.
+     */
+    public record BatchItemResult(
+            @JsonProperty("jobId") String jobId,
+            @JsonProperty("sourceDataUrl") String sourceDataUrl,
+            @JsonProperty("targetFileName") String targetFileName,
+            @JsonProperty("success") boolean success,
+            @JsonProperty("elapsedMillis") long elapsedMillis,
+            @JsonProperty("instancesProcessed") long instancesProcessed,
+            @JsonProperty("outputLocation") String outputLocation)
+            implements Serializable {}
+
+    /**
+     * Final message of a batch transformation job.
+     */
+    public record BatchResultMessage(
+            @JsonProperty("jobId") String jobId,
+            @JsonProperty("success") boolean success,
+            @JsonProperty("items") List<BatchItemResult> items,
+            @JsonProperty("elapsedMillis") long elapsedMillis,
+            @JsonProperty("timestamp") long timestamp)
+            implements Serializable {}
+
+    /**
+     * Prefix of the routing key for progress messages, followed by the job ID
+     */
+    public static final String PROGRESS_ROUTING_KEY_PREFIX = "hale.progress.";
+
+    /**
+     * Prefix of the routing key for result messages, followed by the job ID
+     */
+    public static final String RESULT_ROUTING_KEY_PREFIX = "hale.result.";
+
+    /**
+     * Prefix of the routing key for batch result messages, followed by the job
+     * ID
+     */
+    public static final String BATCH_RESULT_ROUTING_KEY_PREFIX = "hale.batch-result.";
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransformationProgressPublisher.class);
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final Map<String, Transformer> runningJobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TransformationProgressPublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    /**
+     * Register a transformation job to be included in the periodic heartbeats.
+     *
+     * @param transformer the transformer running the job
+     */
+    public void register(Transformer transformer) {
+        runningJobs.put(transformer.getJobId(), transformer);
+    }
+
+    /**
+     * Remove a transformation job from the periodic heartbeats.
+     *
+     * @param transformer the transformer running the job
+     */
+    public void unregister(Transformer transformer) {
+        runningJobs.remove(transformer.getJobId());
+    }
+
+    /**
+     * Publish a progress message for each running job.
+     */
+    @Scheduled(fixedRateString = "${transformer.progress.interval}")
+    public void publishHeartbeats() {
+        runningJobs.values().forEach(this::publishProgress);
+    }
+
+    /**
+     * Publish a progress message for a job.
+     *
+     * @param transformer the transformer running the job
+     */
+    public void publishProgress(Transformer transformer) {
+        long elapsed = transformer.getElapsedTime();
+        long instances = transformer.getInstancesWritten();
+        long bytes = transformer.getBytesWritten();
+        TransformationStage stage = transformer.getCurrentStage();
+
+        TransformationProgressMessage message = new TransformationProgressMessage(
+                transformer.getJobId(),
+                stage != null ? stage.name() : null,
+                instances,
+                perSecond(instances, elapsed),
+                bytes,
+                perSecond(bytes, elapsed),
+                elapsed,
+                System.currentTimeMillis());
+
+        send(PROGRESS_ROUTING_KEY_PREFIX + transformer.getJobId(), message);
+    }
+
+    /**
+     * Publish the result message for a finished job.
+     *
+     * @param transformer the transformer that ran the job
+     * @param outputLocation the location the result was stored at, may be
+     *            <code>null</code>
+     */
+    public void publishResult(Transformer transformer, String outputLocation) {
+        long elapsed = transformer.getElapsedTime();
+        long instances = transformer.getInstancesWritten();
+
+        Map<String, Long> timings = new LinkedHashMap<>();
+        transformer.getStageTimings().forEach((stage, time) -> timings.put(stage.name(), time));
+
+        JSONObject stats = transformer.getStats();
+
+        TransformationResultMessage message = new TransformationResultMessage(
+                transformer.getJobId(),
+                Boolean.TRUE.equals(transformer.getSuccess()),
+                stats != null ? stats.toMap() : null,
+                timings,
+                elapsed,
+                instances,
+                perSecond(instances, elapsed),
+                outputLocation,
+                System.currentTimeMillis());
+
+        send(RESULT_ROUTING_KEY_PREFIX + transformer.getJobId(), message);
+    }
+
+    /**
+     * Publish the result message for a job that was not run by a single
+     * transformer, like a job split into shards.
+     *
+     * @param jobId the identifier of the job
+     * @param success if the job was successful
+     * @param stageTimings the duration of the job stages in milliseconds
+     * @param elapsedMillis the duration of the job in milliseconds
+     * @param instances the number of instances written, -1 if unknown
+     * @param outputLocation the location the result was stored at, may be
+     *            <code>null</code>
+     */
+    public void publishResult(
+            String jobId,
+            boolean success,
+            Map<String, Long> stageTimings,
+            long elapsedMillis,
+            long instances,
+            String outputLocation) {
+        TransformationResultMessage message = new TransformationResultMessage(
+                jobId,
+                success,
+                null,
+                stageTimings,
+                elapsedMillis,
+                instances,
+                perSecond(instances, elapsedMillis),
+                outputLocation,
+                System.currentTimeMillis());
+
+        send(RESULT_ROUTING_KEY_PREFIX + jobId, message);
+    }
+
+    /**
+     * Publish the result message for a finished batch.
+     *
+     * @param jobId the identifier of the batch job
+     * @param items the results of the individual items
+     * @param elapsedMillis the duration of the batch in milliseconds
+     */
+    public void publishBatchResult(String jobId, List<BatchItemResult> items, long elapsedMillis) {
+        boolean success = !items.isEmpty() && items.stream().allMatch(BatchItemResult::success);
+
+        BatchResultMessage message =
+                new BatchResultMessage(jobId, success, items, elapsedMillis, System.currentTimeMillis());
+
+        send(BATCH_RESULT_ROUTING_KEY_PREFIX + jobId, message);
+    }
+
+    private static double perSecond(long amount, long millis) {
+        if (amount < 0 || millis <= 0) {
+            return -1;
+        }
+        return amount * 1000.0 / millis;
+    }
+
+    private void send(String routingKey, Object message) {
+        try {
+            rabbitTemplate.convertAndSend(TransformerApiApplication.PROGRESS_EXCHANGE_NAME, routingKey, message);
+        } catch (AmqpException e) {
+            // progress reporting must not affect the transformation
+            LOG.warn("Failed to publish message with routing key {}: {}", routingKey, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package to.wetransform.hale.transformer.gml;
+
+import java.util.Set;
+
+/**
+ * Fingerprint of a single feature in a GML document.
+ *
+ * @param hash hash of the feature content
+ * @param references the identifiers of features that are referenced locally
+ *            from the feature via <code>xlink:href</code>
+ */
+public record FeatureFingerprint(String hash, Set<String> references) {}
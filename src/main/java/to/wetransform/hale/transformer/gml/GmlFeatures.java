@@ -0,0 +1,605 @@
+package to.wetransform.hale.transformer.gml;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Streaming helpers for GML feature collections.
+ */
+public class GmlFeatures {
+
+    private static final String GML_NAMESPACE_PREFIX = "http://www.opengis.net/gml";
+
+    private static final String XLINK_NAMESPACE = "http://www.w3.org/1999/xlink";
+
+    private GmlFeatures() {}
+
+    /**
+     * Create a StAX input factory that does not resolve external entities or
+     * DTDs.
+     *
+     * @return the input factory
+     */
+    public static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+
+    /**
+     * Determine if an element that is a direct child of the collection root
+     * wraps features, e.g. <code>gml:featureMember</code> or
+     * <code>wfs:member</code>.
+     *
+     * @param localName the local name of the element
+     * @return <code>true</code> if the element's children are features
+     */
+    public static boolean isMemberElement(String localName) {
+        return "featureMember".equals(localName)
+                || "featureMembers".equals(localName)
+                || "member".equals(localName)
+                || "members".equals(localName);
+    }
+
+    /**
+     * Count the features in a GML feature collection. Only features wrapped in
+     * member elements of the collection root are counted.
+     *
+     * @param file the GML file
+     * @return the number of features
+     * @throws IOException if reading the file fails
+     * @throws XMLStreamException if the file is not well-formed XML
+     */
+    public static long countFeatures(Path file) throws IOException, XMLStreamException {
+        long count = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            XMLStreamReader reader = createInputFactory().createXMLStreamReader(in);
+            try {
+                int depth = 0;
+                boolean inMember = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        if (depth == 2) {
+                            inMember = isMemberElement(reader.getLocalName());
+                        } else if (depth == 3 && inMember) {
+                            count++;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Scan a GML feature collection for its CRS references, feature types and
+     * namespaces. Memory use does not depend on the number of features. The
+     * stream is read completely, but not closed.
+     *
+     * @param in the GML data
+     * @param location the location of the data
+     * @return the scan result
+     * @throws IOException if reading the data fails
+     * @throws XMLStreamException if the data is not well-formed XML
+     */
+    public static SourceScan scan(InputStream in, URI location) throws IOException, XMLStreamException {
+        CountingInputStream counting = new CountingInputStream(in);
+        long featureCount = 0;
+        Map<String, Long> featureTypes = new LinkedHashMap<>();
+        Map<String, Long> srsNames = new LinkedHashMap<>();
+        Set<String> namespaces = new LinkedHashSet<>();
+
+        XMLStreamReader reader = createInputFactory().createXMLStreamReader(counting);
+        try {
+            int depth = 0;
+            boolean inMember = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2) {
+                        inMember = isMemberElement(reader.getLocalName());
+                    } else if (depth == 3 && inMember) {
+                        featureCount++;
+                        featureTypes.merge(reader.getName().toString(), 1L, Long::sum);
+                    }
+
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        namespaces.add(reader.getNamespaceURI(i));
+                    }
+                    String srsName = reader.getAttributeValue(null, "srsName");
+                    if (srsName != null) {
+                        srsNames.merge(srsName, 1L, Long::sum);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        // include anything following the document
+        counting.transferTo(OutputStream.nullOutputStream());
+
+        return new SourceScan(location, counting.count, featureCount, featureTypes, srsNames, namespaces);
+    }
+
+    /**
+     * Compute fingerprints for all features in a GML feature collection.
+     *
+     * @param file the GML file
+     * @return the fingerprints mapped by feature identifier (<code>gml:id</code>),
+     *         in document order, or <code>null</code> if any feature has no
+     *         identifier
+     * @throws IOException if reading the file fails
+     * @throws XMLStreamException if the file is not well-formed XML
+     */
+    public static Map<String, FeatureFingerprint> fingerprint(Path file) throws IOException, XMLStreamException {
+        Map<String, FeatureFingerprint> result = new LinkedHashMap<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            XMLEventReader reader = createInputFactory().createXMLEventReader(in);
+            try {
+                int depth = 0;
+                boolean inMember = false;
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (event.isStartElement()) {
+                        depth++;
+                        if (depth == 2) {
+                            inMember = isMemberElement(
+                                    event.asStartElement().getName().getLocalPart());
+                        } else if (depth == 3 && inMember) {
+                            String id = featureId(event.asStartElement());
+                            if (id == null) {
+                                return null;
+                            }
+                            result.put(id, fingerprintFeature(event.asStartElement(), reader, false));
+                            depth--;
+                        }
+                    } else if (event.isEndElement()) {
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Compute hashes of the content of some features in a GML feature
+     * collection. Unlike the hashes of {@link #fingerprint(Path)}, they ignore
+     * the <code>gml:id</code> attributes of the features and their nested
+     * elements (e.g. geometries), as these may be generated anew by each
+     * transformation.
+     *
+     * @param file the GML file
+     * @param ids the identifiers of the features to hash
+     * @return the hashes mapped by feature identifier, for the features that
+     *         are present in the file
+     * @throws IOException if reading the file fails
+     * @throws XMLStreamException if the file is not well-formed XML
+     */
+    public static Map<String, String> contentHashes(Path file, Set<String> ids)
+            throws IOException, XMLStreamException {
+        Map<String, String> result = new HashMap<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            XMLEventReader reader = createInputFactory().createXMLEventReader(in);
+            try {
+                int depth = 0;
+                boolean inMember = false;
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (event.isStartElement()) {
+                        depth++;
+                        if (depth == 2) {
+                            inMember = isMemberElement(
+                                    event.asStartElement().getName().getLocalPart());
+                        } else if (depth == 3 && inMember) {
+                            String id = featureId(event.asStartElement());
+                            if (id != null && ids.contains(id)) {
+                                FeatureFingerprint fingerprint =
+                                        fingerprintFeature(event.asStartElement(), reader, true);
+                                result.put(id, fingerprint.hash());
+                                depth--;
+                            }
+                        }
+                    } else if (event.isEndElement()) {
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Determine the identifiers of all features in a GML feature collection.
+     *
+     * @param file the GML file
+     * @return the feature identifiers, features without identifier are
+     *         represented by <code>null</code>
+     * @throws IOException if reading the file fails
+     * @throws XMLStreamException if the file is not well-formed XML
+     */
+    public static Set<String> featureIds(Path file) throws IOException, XMLStreamException {
+        Set<String> ids = new HashSet<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            XMLEventReader reader = createInputFactory().createXMLEventReader(in);
+            try {
+                int depth = 0;
+                boolean inMember = false;
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (event.isStartElement()) {
+                        depth++;
+                        if (depth == 2) {
+                            inMember = isMemberElement(
+                                    event.asStartElement().getName().getLocalPart());
+                        } else if (depth == 3 && inMember) {
+                            ids.add(featureId(event.asStartElement()));
+                        }
+                    } else if (event.isEndElement()) {
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Copy a GML feature collection, only retaining the features accepted by the
+     * given filter.
+     *
+     * @param source the GML file to copy
+     * @param target the file to write the copy to
+     * @param include filter on the feature identifiers, features without
+     *            identifier are tested with <code>null</code>
+     * @throws IOException if reading or writing a file fails
+     * @throws XMLStreamException if the source is not well-formed XML
+     */
+    public static void filter(Path source, Path target, Predicate<String> include)
+            throws IOException, XMLStreamException {
+        splice(source, include, null, target);
+    }
+
+    /**
+     * Copy a GML feature collection, only retaining the features accepted by the
+     * given filter, and append all features of another feature collection.
+     *
+     * @param base the GML file to copy
+     * @param include filter on the feature identifiers of the base file,
+     *            features without identifier are tested with <code>null</code>
+     * @param additions the GML file with the features to append, may be
+     *            <code>null</code>
+     * @param target the file to write the result to
+     * @throws IOException if reading or writing a file fails
+     * @throws XMLStreamException if any of the files is not well-formed XML
+     */
+    public static void splice(Path base, Predicate<String> include, Path additions, Path target)
+            throws IOException, XMLStreamException {
+        merge(base, include, additions != null ? List.of(additions) : List.of(), id -> true, target);
+    }
+
+    /**
+     * Copy a GML feature collection, only retaining the features accepted by the
+     * given filter, and append the features of other feature collections.
+     *
+     * @param base the GML file to copy
+     * @param include filter on the feature identifiers of the base file,
+     *            features without identifier are tested with <code>null</code>
+     * @param additions the GML files with the features to append
+     * @param includeAddition filter on the feature identifiers of the appended
+     *            features, features without identifier are tested with
+     *            <code>null</code>
+     * @param target the file to write the result to
+     * @throws IOException if reading or writing a file fails
+     * @throws XMLStreamException if any of the files is not well-formed XML
+     */
+    public static void merge(
+            Path base, Predicate<String> include, List<Path> additions, Predicate<String> includeAddition, Path target)
+            throws IOException, XMLStreamException {
+        XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+        outputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+
+        try (OutputStream out = Files.newOutputStream(target)) {
+            XMLEventWriter writer = outputFactory.createXMLEventWriter(out, StandardCharsets.UTF_8.name());
+            try {
+                copyFeatures(base, writer, include, false, () -> {
+                    for (Path addition : additions) {
+                        copyFeatures(addition, writer, includeAddition, true, null);
+                    }
+                });
+                writer.flush();
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Callback for appending content before the end of the collection root.
+     */
+    private interface RootEndHandler {
+
+        void beforeRootEnd() throws IOException, XMLStreamException;
+    }
+
+    /**
+     * Copy a GML feature collection, only retaining the features accepted by the
+     * given filter.
+     *
+     * @param file the GML file to copy
+     * @param writer the writer to copy to
+     * @param include filter on the feature identifiers
+     * @param membersOnly if only the member elements should be copied, not the
+     *            document and the collection root
+     * @param rootEndHandler called before the collection root is closed, may be
+     *            <code>null</code>
+     */
+    private static void copyFeatures(
+            Path file,
+            XMLEventWriter writer,
+            Predicate<String> include,
+            boolean membersOnly,
+            RootEndHandler rootEndHandler)
+            throws IOException, XMLStreamException {
+        try (InputStream in = Files.newInputStream(file)) {
+            XMLEventReader reader = createInputFactory().createXMLEventReader(in);
+            try {
+                int depth = 0;
+                boolean inMember = false;
+                // member element that is only written if its feature is included
+                XMLEvent pendingMember = null;
+                int skipDepth = -1;
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (event.isStartElement()) {
+                        depth++;
+                        if (skipDepth >= 0) {
+                            continue;
+                        }
+                        if (depth == 2) {
+                            String localName = event.asStartElement().getName().getLocalPart();
+                            inMember = isMemberElement(localName);
+                            if (inMember && !localName.endsWith("s")) {
+                                // single feature member, decided on the feature
+                                pendingMember = event;
+                                continue;
+                            }
+                            if (!inMember && membersOnly) {
+                                skipDepth = 2;
+                                continue;
+                            }
+                        } else if (depth == 3 && inMember) {
+                            if (!include.test(featureId(event.asStartElement()))) {
+                                // skip the feature and a single feature member
+                                skipDepth = pendingMember != null ? 2 : 3;
+                                pendingMember = null;
+                                continue;
+                            }
+                            if (pendingMember != null) {
+                                writer.add(pendingMember);
+                                pendingMember = null;
+                            }
+                        } else if (depth == 1 && membersOnly) {
+                            continue;
+                        }
+                        writer.add(event);
+                    } else if (event.isEndElement()) {
+                        if (skipDepth >= 0) {
+                            if (depth == skipDepth) {
+                                skipDepth = -1;
+                            }
+                            depth--;
+                            continue;
+                        }
+                        if (depth == 1) {
+                            if (rootEndHandler != null) {
+                                rootEndHandler.beforeRootEnd();
+                            }
+                            if (membersOnly) {
+                                depth--;
+                                continue;
+                            }
+                        }
+                        if (pendingMember != null) {
+                            // member without inline feature, e.g. a reference
+                            writer.add(pendingMember);
+                            pendingMember = null;
+                        }
+                        depth--;
+                        writer.add(event);
+                    } else if (skipDepth < 0 && pendingMember == null) {
+                        if (depth < 2 && membersOnly) {
+                            continue;
+                        }
+                        if (depth == 1 && event.isCharacters() && event.asCharacters().isWhiteSpace()) {
+                            // skipped members would leave blank lines
+                            continue;
+                        }
+                        writer.add(event);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Determine the <code>gml:id</code> of a feature.
+     *
+     * @param element the start element of the feature
+     * @return the identifier or <code>null</code>
+     */
+    public static String featureId(StartElement element) {
+        Iterator<Attribute> attributes = element.getAttributes();
+        while (attributes.hasNext()) {
+            Attribute attribute = attributes.next();
+            QName name = attribute.getName();
+            if ("id".equals(name.getLocalPart()) && name.getNamespaceURI().startsWith(GML_NAMESPACE_PREFIX)) {
+                return attribute.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Consume the events of a feature and compute its fingerprint.
+     *
+     * @param ignoreIds if <code>gml:id</code> attributes are left out of the
+     *            hash
+     */
+    private static FeatureFingerprint fingerprintFeature(
+            StartElement feature, XMLEventReader reader, boolean ignoreIds)
+            throws XMLStreamException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        Set<String> references = new HashSet<>();
+
+        updateDigest(digest, feature, references, ignoreIds);
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+                updateDigest(digest, event.asStartElement(), references, ignoreIds);
+            } else if (event.isEndElement()) {
+                depth--;
+                digest.update((byte) '>');
+            } else if (event.isCharacters()) {
+                Characters characters = event.asCharacters();
+                if (!characters.isWhiteSpace()) {
+                    digest.update(characters.getData().trim().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        return new FeatureFingerprint(HexFormat.of().formatHex(digest.digest()), references);
+    }
+
+    private static void updateDigest(
+            MessageDigest digest, StartElement element, Set<String> references, boolean ignoreIds) {
+        digest.update((byte) '<');
+        digest.update(element.getName().toString().getBytes(StandardCharsets.UTF_8));
+
+        // attribute order is not significant
+        List<String> attributes = new ArrayList<>();
+        Iterator<Attribute> it = element.getAttributes();
+        while (it.hasNext()) {
+            Attribute attribute = it.next();
+            if (ignoreIds
+                    && "id".equals(attribute.getName().getLocalPart())
+                    && attribute.getName().getNamespaceURI().startsWith(GML_NAMESPACE_PREFIX)) {
+                continue;
+            }
+            attributes.add(attribute.getName() + "=" + attribute.getValue());
+
+            if (XLINK_NAMESPACE.equals(attribute.getName().getNamespaceURI())
+                    && "href".equals(attribute.getName().getLocalPart())
+                    && attribute.getValue().startsWith("#")) {
+                references.add(attribute.getValue().substring(1));
+            }
+        }
+        attributes.sort(null);
+        for (String attribute : attributes) {
+            digest.update((byte) ' ');
+            digest.update(attribute.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Input stream counting the bytes read. Closing it does not close the
+     * underlying stream, as some StAX implementations close their input at the
+     * end of the document.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            // the underlying stream is closed by the caller
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package to.wetransform.hale.transformer.gml;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Summary of a GML source determined by a single streaming pass.
+ *
+ * @param location the location of the scanned data
+ * @param byteSize the size of the data in bytes
+ * @param featureCount the number of features in the collection
+ * @param featureTypes the number of features per feature type, the types are
+ *            represented as qualified names (<code>{namespace}localName</code>)
+ * @param srsNames the number of elements per <code>srsName</code>
+ * @param namespaces the namespaces declared in the data
+ */
+public record SourceScan(
+        URI location,
+        long byteSize,
+        long featureCount,
+        Map<String, Long> featureTypes,
+        Map<String, Long> srsNames,
+        Set<String> namespaces) {
+
+    private static final Pattern TRAILING_CODE = Pattern.compile("(\\d+)$");
+
+    /**
+     * @return the <code>srsName</code> used by most elements, <code>null</code>
+     *         if none is specified
+     */
+    public String getPrimarySrsName() {
+        String primary = null;
+        long max = 0;
+        for (Entry<String, Long> entry : srsNames.entrySet()) {
+            if (entry.getValue() > max) {
+                primary = entry.getKey();
+                max = entry.getValue();
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * @return the EPSG code referenced by most elements, regardless of the
+     *         notation, <code>null</code> if there are no EPSG references
+     */
+    public Integer getEpsgCode() {
+        Map<Integer, Long> codes = new HashMap<>();
+        srsNames.forEach((srsName, count) -> {
+            Integer code = parseEpsgCode(srsName);
+            if (code != null) {
+                codes.merge(code, count, Long::sum);
+            }
+        });
+        return codes.entrySet().stream()
+                .max(Entry.comparingByValue())
+                .map(Entry::getKey)
+                .orElse(null);
+    }
+
+    /**
+     * Extract the EPSG code from a <code>srsName</code>, e.g.
+     * <code>EPSG:25832</code>, <code>urn:ogc:def:crs:EPSG::25832</code> or
+     * <code>http://www.opengis.net/def/crs/EPSG/0/25832</code>.
+     *
+     * @param srsName the CRS reference
+     * @return the EPSG code or <code>null</code> if the reference is no EPSG
+     *         reference
+     */
+    public static Integer parseEpsgCode(String srsName) {
+        if (!srsName.toLowerCase(Locale.ROOT).contains("epsg")) {
+            return null;
+        }
+        Matcher matcher = TRAILING_CODE.matcher(srsName.trim());
+        return matcher.find() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+}
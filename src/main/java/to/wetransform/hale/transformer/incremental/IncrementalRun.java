@@ -0,0 +1,154 @@
+package to.wetransform.hale.transformer.incremental;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import to.wetransform.hale.transformer.gml.FeatureFingerprint;
+import to.wetransform.hale.transformer.gml.GmlFeatures;
+
+/**
+ * A transformation run prepared by an {@link IncrementalStore}. A partial run
+ * pins the store entry of the previous run until it is completed or closed.
+ */
+public class IncrementalRun implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalRun.class);
+
+    private final IncrementalStore store;
+    private final Path entryDir;
+    private final Path source;
+    private final Path fullSource;
+    private final Map<String, FeatureFingerprint> fingerprints;
+    private final Set<String> transformed;
+    private final Set<String> replaced;
+    private boolean pinned;
+
+    IncrementalRun(
+            IncrementalStore store,
+            Path entryDir,
+            Path source,
+            Path fullSource,
+            Map<String, FeatureFingerprint> fingerprints,
+            Set<String> transformed,
+            Set<String> replaced) {
+        this.store = store;
+        this.entryDir = entryDir;
+        this.source = source;
+        this.fullSource = fullSource;
+        this.fingerprints = fingerprints;
+        this.transformed = transformed;
+        this.replaced = replaced;
+        this.pinned = transformed != null;
+    }
+
+    /**
+     * @return the source data to transform, only containing the changed features
+     *         if the run is partial
+     */
+    public Path getSource() {
+        return source;
+    }
+
+    /**
+     * @return the complete source data
+     */
+    public Path getFullSource() {
+        return fullSource;
+    }
+
+    /**
+     * @return if only changed features are transformed
+     */
+    public boolean isPartial() {
+        return transformed != null;
+    }
+
+    /**
+     * Complete the run after a successful transformation. For a partial run, the
+     * transformed features are spliced into the result of the previous run.
+     * Afterwards the result is stored for the next run.
+     *
+     * @param result the transformation result, replaced by the complete result
+     *            for partial runs
+     * @return <code>true</code> if the result is complete, <code>false</code> if
+     *         the partial result could not be merged and the full source needs
+     *         to be transformed
+     * @throws IOException if reading or writing a file fails
+     * @throws XMLStreamException if the result is not well-formed XML
+     */
+    public boolean complete(Path result) throws IOException, XMLStreamException {
+        if (entryDir == null) {
+            // features cannot be tracked
+            return true;
+        }
+
+        if (!isPartial()) {
+            save(result);
+            return true;
+        }
+
+        try {
+            Set<String> resultIds = GmlFeatures.featureIds(result);
+            if (!transformed.containsAll(resultIds)) {
+                LOG.warn("Transformed features cannot be matched to the source features, discarding previous run");
+                store.invalidate(entryDir);
+                return false;
+            }
+
+            Path merged = result.resolveSibling(result.getFileName() + ".merged");
+            GmlFeatures.splice(store.getPreviousResult(entryDir), id -> !replaced.contains(id), result, merged);
+            Files.move(merged, result, StandardCopyOption.REPLACE_EXISTING);
+
+            store.save(entryDir, fingerprints, result);
+            return true;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Complete the run after the complete source was transformed instead of
+     * the changed features, because the partial result could not be merged.
+     * The result is stored for the next run.
+     *
+     * @param result the result of transforming the complete source
+     * @throws IOException if reading or writing a file fails
+     * @throws XMLStreamException if the result is not well-formed XML
+     */
+    public void completeFull(Path result) throws IOException, XMLStreamException {
+        if (entryDir != null) {
+            save(result);
+        }
+    }
+
+    /**
+     * Release the store entry of the previous run if the run is not completed,
+     * e.g. because the transformation failed.
+     */
+    @Override
+    public void close() {
+        if (pinned) {
+            pinned = false;
+            store.unpin(entryDir);
+        }
+    }
+
+    private void save(Path result) throws IOException, XMLStreamException {
+        Set<String> resultIds = GmlFeatures.featureIds(result);
+        if (!fingerprints.keySet().containsAll(resultIds)) {
+            LOG.info("Transformation does not retain feature identifiers, incremental transformation not possible");
+            store.invalidate(entryDir);
+            return;
+        }
+
+        store.save(entryDir, fingerprints, result);
+    }
+}
@@ -0,0 +1,340 @@
+package to.wetransform.hale.transformer.incremental;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLStreamException;
+
+import eu.esdihumboldt.hale.common.core.io.supplier.DefaultInputSupplier;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import to.wetransform.hale.transformer.gml.FeatureFingerprint;
+import to.wetransform.hale.transformer.gml.GmlFeatures;
+
+/**
+ * Local store of the feature fingerprints and results of previous
+ * transformations, used to only transform the features that changed since.
+ *
+ * <p>Entries are keyed by the digest of the project and the target key of the
+ * result. Incremental transformation requires that the transformation retains
+ * the <code>gml:id</code> of the source features; if it does not, no entry is
+ * stored and every run transforms the whole source. Entries that were not
+ * used for a while, or the least recently used ones if the store grows too
+ * large, are evicted. Entries that a prepared run still reads from are pinned
+ * and skipped by the eviction until the run is completed or closed.
+ */
+public class IncrementalStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalStore.class);
+
+    private static final String FINGERPRINTS_FILE = "fingerprints.properties";
+
+    private static final String RESULT_FILE = "result.xml";
+
+    private final Path storeDir;
+
+    private final double maxChangedRatio;
+
+    private final long maxSize;
+
+    private final long maxAge;
+
+    private final Map<Path, Integer> pinned = new HashMap<>();
+
+    /**
+     * Create a store without limits for its size and the age of entries.
+     *
+     * @param storeDir the directory to keep the entries in
+     * @param maxChangedRatio the ratio of changed features above which the whole
+     *            source is transformed
+     */
+    public IncrementalStore(Path storeDir, double maxChangedRatio) {
+        this(storeDir, maxChangedRatio, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a store.
+     *
+     * @param storeDir the directory to keep the entries in
+     * @param maxChangedRatio the ratio of changed features above which the whole
+     *            source is transformed
+     * @param maxSize the number of bytes the entries may use, the least
+     *            recently used entries are evicted above
+     * @param maxAge the time in milliseconds after which entries that were not
+     *            used are evicted
+     */
+    public IncrementalStore(Path storeDir, double maxChangedRatio, long maxSize, long maxAge) {
+        this.storeDir = storeDir;
+        this.maxChangedRatio = maxChangedRatio;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Prepare an incremental transformation. The source is downloaded to the work
+     * directory and compared to the entry of the previous run. The run needs to
+     * be closed if it is not completed.
+     *
+     * @param sourceLocation the location of the source data
+     * @param projectDigest the content digest of the hale project, see
+     *            {@link #digest(URI)}
+     * @param targetKey the key the result is stored at
+     * @param workDir the directory to write the source files to
+     * @return the prepared run
+     * @throws IOException if reading the source or project fails
+     * @throws XMLStreamException if the source is not well-formed XML
+     */
+    public IncrementalRun prepare(URI sourceLocation, String projectDigest, String targetKey, File workDir)
+            throws IOException, XMLStreamException {
+        Path sourceFile = new File(workDir, "source.gml").toPath();
+        try (InputStream in = new DefaultInputSupplier(sourceLocation).getInput()) {
+            Files.copy(in, sourceFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Map<String, FeatureFingerprint> fingerprints = GmlFeatures.fingerprint(sourceFile);
+        if (fingerprints == null) {
+            LOG.info("Source contains features without gml:id, incremental transformation not possible");
+            return new IncrementalRun(this, null, sourceFile, sourceFile, null, null, null);
+        }
+
+        Path entryDir = storeDir.resolve(projectDigest).resolve(digest(targetKey));
+        // keep a concurrent eviction from removing the previous result before
+        // it is spliced
+        pin(entryDir);
+        boolean partial = false;
+        try {
+            IncrementalRun run = compareToPrevious(entryDir, sourceFile, fingerprints, workDir);
+            partial = run.isPartial();
+            return run;
+        } finally {
+            if (!partial) {
+                unpin(entryDir);
+            }
+        }
+    }
+
+    private IncrementalRun compareToPrevious(
+            Path entryDir, Path sourceFile, Map<String, FeatureFingerprint> fingerprints, File workDir)
+            throws IOException, XMLStreamException {
+        Map<String, String> previous = loadFingerprints(entryDir);
+        Path previousResult = entryDir.resolve(RESULT_FILE);
+        if (previous == null || !Files.exists(previousResult)) {
+            LOG.info("No previous run found, transforming all {} features", fingerprints.size());
+            return new IncrementalRun(this, entryDir, sourceFile, sourceFile, fingerprints, null, null);
+        }
+        // mark the entry as recently used
+        Files.setLastModifiedTime(entryDir.resolve(FINGERPRINTS_FILE), FileTime.fromMillis(System.currentTimeMillis()));
+
+        Set<String> changed = new HashSet<>();
+        for (Entry<String, FeatureFingerprint> entry : fingerprints.entrySet()) {
+            if (!entry.getValue().hash().equals(previous.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        Set<String> deleted = new HashSet<>(previous.keySet());
+        deleted.removeAll(fingerprints.keySet());
+
+        // also transform features that reference or are referenced by changed
+        // features, as the transformation may combine them
+        Set<String> affected = new HashSet<>(changed);
+        for (Entry<String, FeatureFingerprint> entry : fingerprints.entrySet()) {
+            Set<String> references = entry.getValue().references();
+            if (changed.contains(entry.getKey())) {
+                references.stream().filter(fingerprints::containsKey).forEach(affected::add);
+            } else if (references.stream().anyMatch(id -> changed.contains(id) || deleted.contains(id))) {
+                affected.add(entry.getKey());
+            }
+        }
+
+        if (affected.size() > maxChangedRatio * fingerprints.size()) {
+            LOG.info(
+                    "{} of {} features affected by changes, transforming all features",
+                    affected.size(),
+                    fingerprints.size());
+            return new IncrementalRun(this, entryDir, sourceFile, sourceFile, fingerprints, null, null);
+        }
+
+        LOG.info(
+                "{} of {} features affected by changes, {} features deleted",
+                affected.size(),
+                fingerprints.size(),
+                deleted.size());
+
+        Path partialSource = new File(workDir, "source-partial.gml").toPath();
+        GmlFeatures.filter(sourceFile, partialSource, affected::contains);
+
+        Set<String> replaced = new HashSet<>(affected);
+        replaced.addAll(deleted);
+        return new IncrementalRun(this, entryDir, partialSource, sourceFile, fingerprints, affected, replaced);
+    }
+
+    synchronized void pin(Path entryDir) {
+        pinned.merge(entryDir, 1, Integer::sum);
+    }
+
+    synchronized void unpin(Path entryDir) {
+        pinned.computeIfPresent(entryDir, (entry, count) -> count > 1 ? count - 1 : null);
+    }
+
+    Path getPreviousResult(Path entryDir) {
+        return entryDir.resolve(RESULT_FILE);
+    }
+
+    /**
+     * Store the fingerprints and result of a run.
+     */
+    void save(Path entryDir, Map<String, FeatureFingerprint> fingerprints, Path result) throws IOException {
+        Files.createDirectories(entryDir);
+
+        Properties properties = new Properties();
+        fingerprints.forEach((id, fingerprint) -> properties.setProperty(id, fingerprint.hash()));
+
+        // write to temporary files first so a concurrent reader never sees a
+        // partial entry
+        Path fingerprintsTemp = Files.createTempFile(entryDir, FINGERPRINTS_FILE, ".tmp");
+        try (Writer writer = Files.newBufferedWriter(fingerprintsTemp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Path resultTemp = Files.createTempFile(entryDir, RESULT_FILE, ".tmp");
+        Files.copy(result, resultTemp, StandardCopyOption.REPLACE_EXISTING);
+
+        Files.move(resultTemp, entryDir.resolve(RESULT_FILE), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(fingerprintsTemp, entryDir.resolve(FINGERPRINTS_FILE), StandardCopyOption.REPLACE_EXISTING);
+
+        evict();
+    }
+
+    /**
+     * Remove the entries that were not used within the maximum age and, if the
+     * store is still larger than its maximum size, the least recently used
+     * entries. Pinned entries are kept.
+     */
+    public synchronized void evict() {
+        if (!Files.isDirectory(storeDir)) {
+            return;
+        }
+
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> projectDirs = Files.list(storeDir)) {
+            for (Path projectDir : projectDirs.filter(Files::isDirectory).toList()) {
+                try (Stream<Path> entryDirs = Files.list(projectDir)) {
+                    entryDirs.filter(Files::isDirectory).forEach(entries::add);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to list incremental store {}", storeDir, e);
+            return;
+        }
+
+        // keep the most recently used entries
+        Map<Path, Long> lastUsed = new HashMap<>();
+        entries.forEach(entry -> lastUsed.put(entry, lastUsed(entry)));
+        entries.sort(Comparator.comparing(lastUsed::get, Comparator.reverseOrder()));
+
+        long minLastUsed = System.currentTimeMillis() - maxAge;
+        long size = 0;
+        for (Path entry : entries) {
+            long entrySize = FileUtils.sizeOfDirectory(entry.toFile());
+            if (pinned.containsKey(entry)) {
+                size += entrySize;
+            } else if (lastUsed.get(entry) < minLastUsed || size + entrySize > maxSize) {
+                invalidate(entry);
+                LOG.info("Evicted incremental store entry {} with {} bytes", entry, entrySize);
+            } else {
+                size += entrySize;
+            }
+        }
+    }
+
+    private static long lastUsed(Path entryDir) {
+        try {
+            Path fingerprints = entryDir.resolve(FINGERPRINTS_FILE);
+            return Files.getLastModifiedTime(Files.exists(fingerprints) ? fingerprints : entryDir)
+                    .toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Remove the entry of a run.
+     */
+    void invalidate(Path entryDir) {
+        try {
+            FileUtils.deleteDirectory(entryDir.toFile());
+        } catch (IOException e) {
+            LOG.warn("Failed to remove incremental store entry {}", entryDir, e);
+        }
+    }
+
+    private Map<String, String> loadFingerprints(Path entryDir) throws IOException {
+        Path file = entryDir.resolve(FINGERPRINTS_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        Map<String, String> result = new HashMap<>();
+        properties.stringPropertyNames().forEach(id -> result.put(id, properties.getProperty(id)));
+        return result;
+    }
+
+    /**
+     * Determine the content digest of a file, e.g. of a hale project.
+     *
+     * @param location the file location
+     * @return the hex encoded digest
+     * @throws IOException if reading the file fails
+     */
+    public static String digest(URI location) throws IOException {
+        MessageDigest digest = createDigest();
+        try (InputStream in = new DigestInputStream(new DefaultInputSupplier(location).getInput(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String digest(String value) {
+        return HexFormat.of().formatHex(createDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return a new instance of the digest used for the content digests
+     */
+    public static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
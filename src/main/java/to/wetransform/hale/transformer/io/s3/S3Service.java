@@ -1,16 +1,25 @@
 package to.wetransform.hale.transformer.io.s3;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 
 import software.amazon.awssdk.auth.credentials.AwsCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
 /**
  * Adapter for S3 object storages
@@ -18,6 +27,8 @@ import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 public class S3Service implements AutoCloseable {
     private final S3Client s3Client;
 
+    private final S3Presigner presigner;
+
     /**
      * Creates an S3 service instance with the given parameters.
      *
@@ -26,14 +37,37 @@ public class S3Service implements AutoCloseable {
      * @param endpoint Optional endpoint URL. If null, AWS S3 endpoints are used.
      */
     public S3Service(Region region, AwsCredentials credentials, URI endpoint) {
-        S3ClientBuilder builder =
-                S3Client.builder().region(region).credentialsProvider(StaticCredentialsProvider.create(credentials));
+        this(region, credentials, endpoint, false);
+    }
+
+    /**
+     * Creates an S3 service instance with the given parameters.
+     *
+     * @param region S3 region to connect to
+     * @param credentials Credentials for accessing S3
+     * @param endpoint Optional endpoint URL. If null, AWS S3 endpoints are used.
+     * @param pathStyleAccess If objects are addressed path-style instead of
+     *            with the bucket as part of the host name, as required by some
+     *            S3 compatible storages
+     */
+    public S3Service(Region region, AwsCredentials credentials, URI endpoint, boolean pathStyleAccess) {
+        StaticCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(credentials);
+        S3ClientBuilder builder = S3Client.builder().region(region).credentialsProvider(credentialsProvider);
+        S3Presigner.Builder presignerBuilder =
+                S3Presigner.builder().region(region).credentialsProvider(credentialsProvider);
 
         if (endpoint != null) {
             builder = builder.endpointOverride(endpoint);
+            presignerBuilder = presignerBuilder.endpointOverride(endpoint);
+        }
+        if (pathStyleAccess) {
+            builder = builder.forcePathStyle(true);
+            presignerBuilder = presignerBuilder.serviceConfiguration(
+                    S3Configuration.builder().pathStyleAccessEnabled(true).build());
         }
 
         this.s3Client = builder.build();
+        this.presigner = presignerBuilder.build();
     }
 
     /**
@@ -51,10 +85,60 @@ public class S3Service implements AutoCloseable {
         return s3Client.putObject(req, Path.of(file.toURI()));
     }
 
+    /**
+     * Download an object from an S3 bucket
+     *
+     * @param bucketName Name of the bucket
+     * @param key Key (file name) of the object
+     * @param file File to write the object to, an existing file is replaced
+     * @throws IOException if the existing file cannot be replaced
+     */
+    public void getObject(String bucketName, String key, File file) throws IOException {
+        GetObjectRequest req =
+                GetObjectRequest.builder().bucket(bucketName).key(key).build();
+
+        Files.deleteIfExists(file.toPath());
+        s3Client.getObject(req, file.toPath());
+    }
+
+    /**
+     * Delete an object from an S3 bucket
+     *
+     * @param bucketName Name of the bucket
+     * @param key Key (file name) of the object
+     */
+    public void deleteObject(String bucketName, String key) {
+        DeleteObjectRequest req =
+                DeleteObjectRequest.builder().bucket(bucketName).key(key).build();
+
+        s3Client.deleteObject(req);
+    }
+
+    /**
+     * Create a URL that allows downloading an object without credentials
+     *
+     * @param bucketName Name of the bucket
+     * @param key Key (file name) of the object
+     * @param validity Duration the URL is valid for
+     * @return the presigned URL
+     */
+    public URL presignGetObject(String bucketName, String key, Duration validity) {
+        GetObjectRequest req =
+                GetObjectRequest.builder().bucket(bucketName).key(key).build();
+
+        return presigner
+                .presignGetObject(GetObjectPresignRequest.builder()
+                        .signatureDuration(validity)
+                        .getObjectRequest(req)
+                        .build())
+                .url();
+    }
+
     /**
      * Close the S3 connection
      */
     public void close() {
+        this.presigner.close();
         this.s3Client.close();
     }
 }
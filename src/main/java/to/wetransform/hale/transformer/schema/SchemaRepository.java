@@ -0,0 +1,362 @@
+package to.wetransform.hale.transformer.schema;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.CacheRequest;
+import java.net.CacheResponse;
+import java.net.HttpURLConnection;
+import java.net.ResponseCache;
+import java.net.SecureCacheResponse;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.security.cert.Certificate;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide repository of remote XML schemas, shared by all
+ * transformations.
+ *
+ * <p>The repository is installed as the {@link ResponseCache} of the JVM, so
+ * XML schemas that are loaded via URL connections are only downloaded once.
+ * Schemas are identified by their location and their content is stored by its
+ * hash, so a schema published at several locations is only held once. If a
+ * mirror directory is configured, downloaded schemas are also stored there and
+ * are available after a restart without accessing the network.
+ *
+ * <p>Schemas are never updated once they are in the repository, as published
+ * XML schema versions like those of XPlanung do not change.
+ *
+ * <p>Schemas loaded via HTTPS are served as {@link SecureCacheResponse} with
+ * the TLS details of the original download, as HTTPS connections ignore other
+ * cached responses. For schemas read from the mirror these details are not
+ * known.
+ */
+public class SchemaRepository extends ResponseCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaRepository.class);
+
+    private final Path mirrorDir;
+
+    private final Map<URI, String> locations = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+
+    private final Map<URI, SecureOrigin> secureOrigins = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * TLS details of the connection a schema was downloaded with.
+     */
+    private record SecureOrigin(
+            String cipherSuite,
+            List<Certificate> localCertificateChain,
+            List<Certificate> serverCertificateChain,
+            Principal peerPrincipal,
+            Principal localPrincipal) {
+
+        static SecureOrigin of(HttpsURLConnection connection) throws SSLPeerUnverifiedException {
+            Certificate[] local = connection.getLocalCertificates();
+            return new SecureOrigin(
+                    connection.getCipherSuite(),
+                    local != null ? List.of(local) : null,
+                    List.of(connection.getServerCertificates()),
+                    connection.getPeerPrincipal(),
+                    connection.getLocalPrincipal());
+        }
+    }
+
+    /**
+     * Create a schema repository.
+     *
+     * @param mirrorDir the directory to keep copies of downloaded schemas in,
+     *            may be <code>null</code>
+     */
+    public SchemaRepository(Path mirrorDir) {
+        this.mirrorDir = mirrorDir;
+    }
+
+    /**
+     * Use this repository for all URL connections of the JVM.
+     */
+    public void install() {
+        ResponseCache.setDefault(this);
+    }
+
+    /**
+     * Determine if the repository handles a location.
+     *
+     * @param location the location
+     * @return if the location is a remote XML schema
+     */
+    public static boolean isSchemaLocation(URI location) {
+        String scheme = location.getScheme();
+        String path = location.getPath();
+        return scheme != null
+                && (scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))
+                && path != null
+                && path.toLowerCase(Locale.ROOT).endsWith(".xsd");
+    }
+
+    /**
+     * Get the content of a schema from the repository.
+     *
+     * @param location the schema location
+     * @return the schema content or <code>null</code> if the schema is not in
+     *         the repository
+     */
+    public byte[] getSchema(URI location) {
+        String hash = locations.get(location);
+        if (hash != null) {
+            return contents.get(hash);
+        }
+
+        if (mirrorDir != null) {
+            Path file = mirrorFile(location);
+            if (Files.isRegularFile(file)) {
+                try {
+                    return store(location, Files.readAllBytes(file));
+                } catch (IOException e) {
+                    LOG.warn("Could not read mirrored schema {}", file, e);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add a schema to the repository.
+     *
+     * @param location the schema location
+     * @param content the schema content
+     */
+    public void putSchema(URI location, byte[] content) {
+        if (locations.containsKey(location)) {
+            return;
+        }
+        store(location, content);
+
+        if (mirrorDir != null) {
+            Path file = mirrorFile(location);
+            try {
+                Files.createDirectories(mirrorDir);
+                Path temp = Files.createTempFile(mirrorDir, "schema", ".tmp");
+                Files.write(temp, content);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                LOG.warn("Could not mirror schema {}", location, e);
+            }
+        }
+    }
+
+    private byte[] store(URI location, byte[] content) {
+        // share the content of identical schemas
+        String hash = sha256(content);
+        byte[] shared = contents.computeIfAbsent(hash, key -> content);
+        locations.putIfAbsent(location, hash);
+        return shared;
+    }
+
+    /**
+     * @return the number of schema locations in the repository
+     */
+    public int getSchemaCount() {
+        return locations.size();
+    }
+
+    /**
+     * @return the number of bytes of distinct schema content held in memory
+     */
+    public long getSize() {
+        return contents.values().stream().mapToLong(content -> content.length).sum();
+    }
+
+    /**
+     * @return the number of schema requests served from the repository
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of schema requests that had to be downloaded
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public CacheResponse get(URI uri, String rqstMethod, Map<String, List<String>> rqstHeaders) {
+        if (!"GET".equals(rqstMethod) || !isSchemaLocation(uri)) {
+            return null;
+        }
+
+        byte[] content = getSchema(uri);
+        if (content == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put(null, List.of("HTTP/1.1 200 OK"));
+        headers.put("Content-Type", List.of("application/xml"));
+        headers.put("Content-Length", List.of(String.valueOf(content.length)));
+
+        if (!"https".equalsIgnoreCase(uri.getScheme())) {
+            return new CacheResponse() {
+                @Override
+                public Map<String, List<String>> getHeaders() {
+                    return headers;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return serve(content);
+                }
+            };
+        }
+
+        SecureOrigin origin = secureOrigins.get(uri);
+        return new SecureCacheResponse() {
+            @Override
+            public Map<String, List<String>> getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public InputStream getBody() {
+                return serve(content);
+            }
+
+            @Override
+            public String getCipherSuite() {
+                return origin != null ? origin.cipherSuite() : null;
+            }
+
+            @Override
+            public List<Certificate> getLocalCertificateChain() {
+                return origin != null ? origin.localCertificateChain() : null;
+            }
+
+            @Override
+            public List<Certificate> getServerCertificateChain() throws SSLPeerUnverifiedException {
+                if (origin == null) {
+                    throw new SSLPeerUnverifiedException("Schema " + uri + " was loaded from the mirror");
+                }
+                return origin.serverCertificateChain();
+            }
+
+            @Override
+            public Principal getPeerPrincipal() throws SSLPeerUnverifiedException {
+                if (origin == null) {
+                    throw new SSLPeerUnverifiedException("Schema " + uri + " was loaded from the mirror");
+                }
+                return origin.peerPrincipal();
+            }
+
+            @Override
+            public Principal getLocalPrincipal() {
+                return origin != null ? origin.localPrincipal() : null;
+            }
+        };
+    }
+
+    private InputStream serve(byte[] content) {
+        // the body is only requested if the connection uses the cached response
+        hits.incrementAndGet();
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public CacheRequest put(URI uri, URLConnection conn) throws IOException {
+        if (!isSchemaLocation(uri)
+                || !(conn instanceof HttpURLConnection http)
+                || !"GET".equals(http.getRequestMethod())
+                || http.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            return null;
+        }
+
+        SecureOrigin origin = null;
+        if (conn instanceof HttpsURLConnection https) {
+            try {
+                origin = SecureOrigin.of(https);
+            } catch (SSLPeerUnverifiedException | IllegalStateException e) {
+                LOG.debug("Not storing schema {}, the TLS details are not available", uri, e);
+                return null;
+            }
+        }
+        SecureOrigin secureOrigin = origin;
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        return new CacheRequest() {
+            private boolean aborted = false;
+
+            @Override
+            public OutputStream getBody() {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                        buffer.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        buffer.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() {
+                        // only called once the response was read completely
+                        if (!aborted) {
+                            if (secureOrigin != null) {
+                                secureOrigins.putIfAbsent(uri, secureOrigin);
+                            }
+                            putSchema(uri, buffer.toByteArray());
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public void abort() {
+                aborted = true;
+            }
+        };
+    }
+
+    private Path mirrorFile(URI location) {
+        return mirrorDir.resolve(sha256(location.toString().getBytes(StandardCharsets.UTF_8)) + ".xsd");
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package to.wetransform.hale.transformer.sharding;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assignment of the features of a GML feature collection to shards.
+ *
+ * @param shardCount the number of shards
+ * @param sharedFeatures identifiers of features that are included in every
+ *            shard, as many other features reference them
+ * @param assignment the shard index for each feature that is not shared
+ */
+public record ShardPlan(int shardCount, Set<String> sharedFeatures, Map<String, Integer> assignment) {
+
+    /**
+     * Determine if a feature is part of a shard.
+     *
+     * @param shard the shard index
+     * @param featureId the feature identifier
+     * @return if the feature is included in the shard
+     */
+    public boolean includes(int shard, String featureId) {
+        if (sharedFeatures.contains(featureId)) {
+            return true;
+        }
+        Integer assigned = assignment.get(featureId);
+        return assigned != null && assigned == shard;
+    }
+
+    /**
+     * Determine if the result of transforming a shard retains the identifiers
+     * of the source features. Only then can the copies of shared features in
+     * the results of different shards be recognized when merging them.
+     *
+     * @param shard the shard index
+     * @param resultIds the identifiers of the features in the shard result
+     * @return if all result features have the identifier of a source feature
+     *         of the shard
+     */
+    public boolean retainsIds(int shard, Set<String> resultIds) {
+        return resultIds.stream().allMatch(id -> id != null && includes(shard, id));
+    }
+}
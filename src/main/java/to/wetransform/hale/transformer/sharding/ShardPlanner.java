@@ -0,0 +1,135 @@
+package to.wetransform.hale.transformer.sharding;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import to.wetransform.hale.transformer.gml.FeatureFingerprint;
+
+/**
+ * Partitions the features of a GML feature collection into shards that can be
+ * transformed independently.
+ *
+ * <p>Features that are linked via <code>xlink:href</code> are kept in the same
+ * shard, as the transformation may combine them. Features with many links, like
+ * the plan areas (Bereiche) in XPlanGML that reference all of their plan
+ * contents, would otherwise force everything into one shard; they are instead
+ * included in every shard and deduplicated when the shard results are merged.
+ */
+public class ShardPlanner {
+
+    private final int hubDegree;
+
+    /**
+     * Create a shard planner.
+     *
+     * @param hubDegree the number of links above which a feature is included in
+     *            every shard
+     */
+    public ShardPlanner(int hubDegree) {
+        this.hubDegree = hubDegree;
+    }
+
+    /**
+     * Plan the shards for a feature collection.
+     *
+     * @param features the feature fingerprints, in document order
+     * @param shardCount the number of shards to create
+     * @return the shard plan
+     */
+    public ShardPlan plan(Map<String, FeatureFingerprint> features, int shardCount) {
+        List<String> ids = new ArrayList<>(features.keySet());
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            index.put(ids.get(i), i);
+        }
+
+        // determine the number of links per feature, in both directions
+        int[] degree = new int[ids.size()];
+        for (Entry<String, FeatureFingerprint> entry : features.entrySet()) {
+            int from = index.get(entry.getKey());
+            for (String reference : entry.getValue().references()) {
+                Integer to = index.get(reference);
+                if (to != null && to != from) {
+                    degree[from]++;
+                    degree[to]++;
+                }
+            }
+        }
+
+        Set<String> shared = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (degree[i] > hubDegree) {
+                shared.add(ids.get(i));
+            }
+        }
+
+        // group features connected by links between non-shared features
+        int[] parent = new int[ids.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (Entry<String, FeatureFingerprint> entry : features.entrySet()) {
+            if (shared.contains(entry.getKey())) {
+                continue;
+            }
+            int from = index.get(entry.getKey());
+            for (String reference : entry.getValue().references()) {
+                Integer to = index.get(reference);
+                if (to != null && !shared.contains(reference)) {
+                    union(parent, from, to);
+                }
+            }
+        }
+
+        Map<Integer, List<String>> groups = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (!shared.contains(ids.get(i))) {
+                groups.computeIfAbsent(find(parent, i), k -> new ArrayList<>())
+                        .add(ids.get(i));
+            }
+        }
+
+        // assign the largest groups first, each to the currently smallest shard
+        List<List<String>> sortedGroups = new ArrayList<>(groups.values());
+        sortedGroups.sort(Comparator.comparingInt((List<String> group) -> group.size())
+                .reversed());
+        int[] shardSizes = new int[shardCount];
+        Map<String, Integer> assignment = new HashMap<>();
+        for (List<String> group : sortedGroups) {
+            int smallest = 0;
+            for (int shard = 1; shard < shardCount; shard++) {
+                if (shardSizes[shard] < shardSizes[smallest]) {
+                    smallest = shard;
+                }
+            }
+            shardSizes[smallest] += group.size();
+            for (String id : group) {
+                assignment.put(id, smallest);
+            }
+        }
+
+        return new ShardPlan(shardCount, shared, assignment);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[rootB] = rootA;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package to.wetransform.hale.transformer;
+
+import static org.junit.Assert.*;
+
+import org.junit.jupiter.api.Test;
+
+class MemoryAdmissionTest {
+
+    @Test
+    void testAdmission() {
+        MemoryAdmission admission = new MemoryAdmission(2, 1000);
+
+        assertTrue(admission.admit("a", 300));
+        assertEquals(600, admission.getReservedBytes());
+        assertFalse(admission.admit("b", 300));
+        assertFalse(admission.hasCapacity());
+
+        // sources of unknown size are admitted without a reservation
+        assertTrue(admission.admit("c", -1));
+        assertEquals(600, admission.getReservedBytes());
+
+        admission.release("a");
+        assertTrue(admission.hasCapacity());
+        assertTrue(admission.admit("b", 300));
+    }
+
+    @Test
+    void testSingleJobExceedingHeap() {
+        MemoryAdmission admission = new MemoryAdmission(2, 1000);
+
+        assertTrue(admission.admit("a", 10_000));
+        assertFalse(admission.admit("b", 1));
+
+        // a job running alone may grow its reservation
+        assertTrue(admission.reserveHeap("a", 50_000));
+        assertEquals(50_000, admission.getReservedBytes());
+    }
+
+    @Test
+    void testReplaceReservation() {
+        MemoryAdmission admission = new MemoryAdmission(2, 1000);
+
+        assertTrue(admission.admit("a", 300));
+        assertTrue(admission.admit("b", 200));
+        assertFalse(admission.reserveHeap("a", 700));
+        assertEquals(1000, admission.getReservedBytes());
+
+        assertTrue(admission.reserveHeap("a", 100));
+        assertEquals(500, admission.getReservedBytes());
+    }
+
+    @Test
+    void testWaitForRelease() throws Exception {
+        MemoryAdmission admission = new MemoryAdmission(2, 1000);
+        assertTrue(admission.admit("a", 400));
+
+        Thread releasing = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                return;
+            }
+            admission.release("a");
+        });
+        releasing.start();
+
+        assertTrue(admission.admit("b", 400, 10_000));
+        releasing.join();
+        assertEquals(800, admission.getReservedBytes());
+
+        // not released in time
+        assertFalse(admission.admit("c", 400, 100));
+    }
+
+    @Test
+    void testDisabled() {
+        MemoryAdmission admission = new MemoryAdmission(0, 1);
+
+        assertTrue(admission.admit("a", 1000));
+        assertTrue(admission.admit("b", 1000));
+        assertTrue(admission.hasCapacity());
+    }
+}
@@ -0,0 +1,65 @@
+package to.wetransform.hale.transformer;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorkspaceManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testQuota() throws Exception {
+        WorkspaceManager manager = new WorkspaceManager(tempDir.resolve("workspace"), 1024);
+
+        File workDir = manager.acquire("a").createTempDir();
+        Files.write(workDir.toPath().resolve("source.gml"), new byte[2048]);
+        assertEquals(2048, manager.getUsedBytes("a"));
+        assertFalse(manager.hasSpace());
+
+        try {
+            manager.acquire("b");
+            fail("Workspace quota exceeded");
+        } catch (WorkspaceQuotaExceededException e) {
+            // expected
+        }
+
+        manager.release("a");
+        assertFalse(workDir.exists());
+        assertTrue(manager.hasSpace());
+        assertNotNull(manager.acquire("b"));
+        assertEquals(1, manager.getActiveJobs());
+    }
+
+    @Test
+    void testOrphanCleanup() throws Exception {
+        Path workspaceDir = Files.createDirectories(tempDir.resolve("workspace"));
+        WorkspaceManager manager = new WorkspaceManager(workspaceDir, 1024);
+        long old = System.currentTimeMillis() - 3_600_000;
+
+        Path active = manager.acquire("a").createTempDir().toPath();
+        Files.write(active.resolve("source.gml"), new byte[100]);
+        Files.setLastModifiedTime(active, FileTime.fromMillis(old));
+
+        Path orphan = Files.createDirectory(workspaceDir.resolve("orphan"));
+        Files.write(orphan.resolve("source.gml"), new byte[2048]);
+        Files.setLastModifiedTime(orphan, FileTime.fromMillis(old));
+
+        // directories that may just be created by a job are kept
+        Path recent = Files.createDirectory(workspaceDir.resolve("recent"));
+        Files.write(recent.resolve("source.gml"), new byte[100]);
+
+        // orphans are only removed once the quota is exceeded
+        assertNotNull(manager.acquire("b"));
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(active));
+        assertTrue(Files.exists(recent));
+    }
+}
@@ -0,0 +1,78 @@
+package to.wetransform.hale.transformer.api.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import to.wetransform.hale.transformer.MemoryAdmission;
+import to.wetransform.hale.transformer.WorkspaceManager;
+
+class ConsumerPauseTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPauseAndResume() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(container.isRunning()).thenAnswer(invocation -> running.get());
+        doAnswer(invocation -> {
+                    running.set(false);
+                    invocation.<Runnable>getArgument(0).run();
+                    return null;
+                })
+                .when(container)
+                .stop(any(Runnable.class));
+        doAnswer(invocation -> {
+                    running.set(true);
+                    return null;
+                })
+                .when(container)
+                .start();
+
+        RabbitListenerEndpointRegistry registry = mock(RabbitListenerEndpointRegistry.class);
+        when(registry.getListenerContainers()).thenReturn(List.of(container));
+        DrainService drainService = mock(DrainService.class);
+        WorkspaceManager workspaceManager = new WorkspaceManager(tempDir, 1024);
+        MemoryAdmission memoryAdmission = new MemoryAdmission(1, 1000);
+
+        ConsumerPause pause = new ConsumerPause(registry, workspaceManager, memoryAdmission, drainService);
+
+        assertTrue(memoryAdmission.admit("a", 800));
+        assertFalse(memoryAdmission.admit("b", 500));
+        pause.pause("heap exhausted");
+        pause.pause("heap exhausted");
+        verify(container, times(1)).stop(any(Runnable.class));
+        assertTrue(pause.isPaused());
+        assertFalse(running.get());
+
+        // not resumed without capacity
+        pause.resumeIfPossible();
+        assertTrue(pause.isPaused());
+        memoryAdmission.release("a");
+
+        Path file = Files.write(tempDir.resolve("source.gml"), new byte[2048]);
+        pause.resumeIfPossible();
+        assertTrue(pause.isPaused());
+        Files.delete(file);
+
+        when(drainService.isDraining()).thenReturn(true);
+        pause.resumeIfPossible();
+        assertTrue(pause.isPaused());
+        when(drainService.isDraining()).thenReturn(false);
+
+        pause.resumeIfPossible();
+        assertFalse(pause.isPaused());
+        assertTrue(running.get());
+        verify(container).start();
+    }
+}
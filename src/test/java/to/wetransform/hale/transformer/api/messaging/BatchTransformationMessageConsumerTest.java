@@ -0,0 +1,28 @@
+package to.wetransform.hale.transformer.api.messaging;
+
+import static org.junit.Assert.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+class BatchTransformationMessageConsumerTest {
+
+    @Test
+    void testDeserializeBatchTransformationMessage() throws Exception {
+        byte[] messageBody =
+                "{\"projectUrl\": \"https://example.org/example.halez\", \"items\": [{\"sourceDataUrl\": \"https://example.org/plan1.gml\", \"targetFileName\": \"plan1.gml\"}, {\"sourceDataUrl\": \"https://example.org/plan2.gml\", \"targetFileName\": \"plan2.gml\"}], \"parallelism\": 2, \"s3Region\": \"eu-west-1\", \"s3BucketName\": \"example-bucket\", \"s3AccessKey\": \"ACCESSKEY\", \"s3SecretKey\": \"SECRETKEY\"}"
+                        .getBytes();
+
+        ObjectMapper mapper = new ObjectMapper();
+        BatchTransformationMessageConsumer.BatchTransformationMessage batchMessage =
+                mapper.readValue(messageBody, BatchTransformationMessageConsumer.BatchTransformationMessage.class);
+
+        assertEquals("https://example.org/example.halez", batchMessage.projectUrl());
+        assertEquals(2, batchMessage.items().size());
+        assertEquals("https://example.org/plan2.gml", batchMessage.items().get(1).sourceDataUrl());
+        assertEquals("plan2.gml", batchMessage.items().get(1).targetFileName());
+        assertEquals(Integer.valueOf(2), batchMessage.parallelism());
+        assertNull(batchMessage.jobId());
+        assertTrue(batchMessage.hasS3Details());
+    }
+}
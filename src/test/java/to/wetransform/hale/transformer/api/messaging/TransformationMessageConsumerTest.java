@@ -22,9 +22,25 @@ class TransformationMessageConsumerTest {
         assertEquals("https://example.org/example.halez", transformationMessage.projectUrl());
         assertEquals("https://example.org/example.gml", transformationMessage.sourceDataUrl());
         assertEquals("result.gml", transformationMessage.targetFileName());
+        assertEquals("result.gml", transformationMessage.s3ResultKey());
         assertEquals("eu-west-1", transformationMessage.s3Region());
         assertEquals("example-bucket", transformationMessage.s3BucketName());
         assertEquals("ACCESSKEY", transformationMessage.s3AccessKey());
         assertEquals("SECRETKEY", transformationMessage.s3SecretKey());
     }
+
+    @Test
+    void testDeserializeProfiledTransformationMessage() throws Exception {
+        byte[] messageBody =
+                "{\"projectUrl\": \"https://example.org/example.halez\", \"sourceDataUrl\": \"https://example.org/example.gml\", \"targetFileName\": \"result.gml\", \"jobId\": \"job-1\", \"profile\": true}"
+                        .getBytes();
+
+        ObjectMapper mapper = new ObjectMapper();
+        TransformationMessageConsumer.TransformationMessage transformationMessage =
+                mapper.readValue(messageBody, TransformationMessageConsumer.TransformationMessage.class);
+
+        assertEquals("job-1", transformationMessage.jobId());
+        assertTrue(transformationMessage.profile());
+        assertFalse(transformationMessage.hasS3Details());
+    }
 }
@@ -0,0 +1,113 @@
+package to.wetransform.hale.transformer.gml;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GmlFeaturesTest {
+
+    private static final String COLLECTION =
+            """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <xplan:XPlanAuszug xmlns:xplan="http://www.xplanung.de/xplangml/5/4" xmlns:gml="http://www.opengis.net/gml/3.2" xmlns:xlink="http://www.w3.org/1999/xlink" gml:id="root">
+              <gml:featureMember>
+                <xplan:BP_Plan gml:id="plan"><xplan:name>Plan</xplan:name><xplan:bereich xlink:href="#bereich"/></xplan:BP_Plan>
+              </gml:featureMember>
+              <gml:featureMember>
+                <xplan:BP_Bereich gml:id="bereich"><xplan:nummer>0</xplan:nummer></xplan:BP_Bereich>
+              </gml:featureMember>
+              <gml:featureMember>
+                <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche"><xplan:ebene>0</xplan:ebene></xplan:BP_BaugebietsTeilFlaeche>
+              </gml:featureMember>
+            </xplan:XPlanAuszug>
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCountFeatures() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("plan.gml"), COLLECTION);
+
+        assertEquals(3, GmlFeatures.countFeatures(file));
+    }
+
+    @Test
+    void testScan() throws Exception {
+        String content = COLLECTION.replace(
+                "<xplan:ebene>0</xplan:ebene>",
+                "<xplan:position><gml:Point srsName=\"urn:ogc:def:crs:EPSG::25832\"><gml:pos>1 2</gml:pos></gml:Point></xplan:position>");
+        Path file = Files.writeString(tempDir.resolve("plan.gml"), content);
+
+        SourceScan scan;
+        try (InputStream in = Files.newInputStream(file)) {
+            scan = GmlFeatures.scan(in, file.toUri());
+        }
+
+        assertEquals(Files.size(file), scan.byteSize());
+        assertEquals(3, scan.featureCount());
+        assertEquals(Long.valueOf(1), scan.featureTypes().get("{http://www.xplanung.de/xplangml/5/4}BP_Plan"));
+        assertEquals(Integer.valueOf(25832), scan.getEpsgCode());
+        assertTrue(scan.namespaces().contains("http://www.opengis.net/gml/3.2"));
+        assertEquals(Integer.valueOf(4258), SourceScan.parseEpsgCode("http://www.opengis.net/def/crs/EPSG/0/4258"));
+        assertNull(SourceScan.parseEpsgCode("urn:ogc:def:crs:OGC:1.3:CRS84"));
+    }
+
+    @Test
+    void testFingerprint() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("plan.gml"), COLLECTION);
+        Path changed = Files.writeString(
+                tempDir.resolve("changed.gml"), COLLECTION.replace("<xplan:ebene>0", "<xplan:ebene>1"));
+
+        Map<String, FeatureFingerprint> fingerprints = GmlFeatures.fingerprint(file);
+        Map<String, FeatureFingerprint> changedFingerprints = GmlFeatures.fingerprint(changed);
+
+        assertEquals(Set.of("plan", "bereich", "flaeche"), fingerprints.keySet());
+        assertEquals(Set.of("bereich"), fingerprints.get("plan").references());
+        assertEquals(
+                fingerprints.get("plan").hash(), changedFingerprints.get("plan").hash());
+        assertNotEquals(
+                fingerprints.get("flaeche").hash(),
+                changedFingerprints.get("flaeche").hash());
+    }
+
+    @Test
+    void testContentHashes() throws Exception {
+        String withGeometry = COLLECTION.replace(
+                "<xplan:nummer>0</xplan:nummer>",
+                "<xplan:geltungsbereich><gml:Point gml:id=\"generated-1\"><gml:pos>1 2</gml:pos></gml:Point></xplan:geltungsbereich>");
+        Path first = Files.writeString(tempDir.resolve("first.gml"), withGeometry);
+        Path second = Files.writeString(
+                tempDir.resolve("second.gml"), withGeometry.replace("generated-1", "generated-2"));
+        Path changed = Files.writeString(tempDir.resolve("changed.gml"), withGeometry.replace("1 2", "1 3"));
+
+        Map<String, String> hashes = GmlFeatures.contentHashes(first, Set.of("bereich"));
+        assertEquals(Set.of("bereich"), hashes.keySet());
+        // generated identifiers of nested elements are not significant
+        assertEquals(hashes, GmlFeatures.contentHashes(second, Set.of("bereich")));
+        assertNotEquals(hashes, GmlFeatures.contentHashes(changed, Set.of("bereich")));
+    }
+
+    @Test
+    void testSplice() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("plan.gml"), COLLECTION);
+        Path changed = Files.writeString(
+                tempDir.resolve("changed.gml"), COLLECTION.replace("<xplan:ebene>0", "<xplan:ebene>1"));
+        Path partial = tempDir.resolve("partial.gml");
+        Path result = tempDir.resolve("result.gml");
+
+        GmlFeatures.filter(changed, partial, "flaeche"::equals);
+        assertEquals(Set.of("flaeche"), GmlFeatures.featureIds(partial));
+
+        GmlFeatures.splice(file, id -> !"flaeche".equals(id), partial, result);
+        assertEquals(Set.of("plan", "bereich", "flaeche"), GmlFeatures.featureIds(result));
+        assertTrue(Files.readString(result).contains("<xplan:ebene>1</xplan:ebene>"));
+    }
+}
@@ -0,0 +1,123 @@
+package to.wetransform.hale.transformer.incremental;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import to.wetransform.hale.transformer.gml.GmlFeatures;
+
+class IncrementalStoreTest {
+
+    private static final String COLLECTION =
+            """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <xplan:XPlanAuszug xmlns:xplan="http://www.xplanung.de/xplangml/5/4" xmlns:gml="http://www.opengis.net/gml/3.2" xmlns:xlink="http://www.w3.org/1999/xlink" gml:id="root">
+              <gml:featureMember>
+                <xplan:BP_Plan gml:id="plan"><xplan:name>Plan</xplan:name></xplan:BP_Plan>
+              </gml:featureMember>
+              <gml:featureMember>
+                <xplan:BP_Bereich gml:id="bereich"><xplan:nummer>0</xplan:nummer></xplan:BP_Bereich>
+              </gml:featureMember>
+              <gml:featureMember>
+                <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche"><xplan:ebene>0</xplan:ebene></xplan:BP_BaugebietsTeilFlaeche>
+              </gml:featureMember>
+            </xplan:XPlanAuszug>
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFullFallbackIsStored() throws Exception {
+        IncrementalStore store = new IncrementalStore(tempDir.resolve("store"), 0.9);
+        String projectDigest = IncrementalStore.digest(
+                Files.writeString(tempDir.resolve("project.hale"), "<project/>").toUri());
+        Path source = Files.writeString(tempDir.resolve("source.gml"), COLLECTION);
+        Path changed = Files.writeString(
+                tempDir.resolve("changed.gml"), COLLECTION.replace("<xplan:ebene>0", "<xplan:ebene>1"));
+
+        // first run transforms the complete source
+        IncrementalRun run = store.prepare(source.toUri(), projectDigest, "result.gml", workDir("run1"));
+        assertFalse(run.isPartial());
+        assertTrue(run.complete(Files.copy(source, tempDir.resolve("result1.gml"))));
+
+        // partial result that cannot be matched to the source features
+        run = store.prepare(changed.toUri(), projectDigest, "result.gml", workDir("run2"));
+        assertTrue(run.isPartial());
+        Path partialResult = Files.writeString(
+                tempDir.resolve("result2.gml"), COLLECTION.replace("gml:id=\"flaeche\"", "gml:id=\"other\""));
+        assertFalse(run.complete(partialResult));
+
+        // the result of transforming the complete source is stored instead
+        run.completeFull(Files.copy(changed, tempDir.resolve("result3.gml")));
+
+        run = store.prepare(changed.toUri(), projectDigest, "result.gml", workDir("run3"));
+        assertTrue(run.isPartial());
+    }
+
+    @Test
+    void testEviction() throws Exception {
+        Path source = Files.writeString(tempDir.resolve("source.gml"), COLLECTION);
+        // room for a single entry
+        IncrementalStore store =
+                new IncrementalStore(tempDir.resolve("store"), 0.9, Files.size(source) + 1024, 86_400_000);
+
+        IncrementalRun run = store.prepare(source.toUri(), "project", "a.gml", workDir("run1"));
+        run.complete(Files.copy(source, tempDir.resolve("result1.gml")));
+        setLastUsed(tempDir.resolve("store"), System.currentTimeMillis() - 3_600_000);
+
+        // the least recently used entry is evicted
+        run = store.prepare(source.toUri(), "project", "b.gml", workDir("run2"));
+        run.complete(Files.copy(source, tempDir.resolve("result2.gml")));
+        assertFalse(store.prepare(source.toUri(), "project", "a.gml", workDir("run3")).isPartial());
+        assertTrue(store.prepare(source.toUri(), "project", "b.gml", workDir("run4")).isPartial());
+
+        // entries not used within the maximum age are evicted
+        setLastUsed(tempDir.resolve("store"), System.currentTimeMillis() - 2 * 86_400_000);
+        store.evict();
+        assertFalse(store.prepare(source.toUri(), "project", "b.gml", workDir("run5")).isPartial());
+    }
+
+    @Test
+    void testPinnedEntryIsKept() throws Exception {
+        IncrementalStore store = new IncrementalStore(tempDir.resolve("store"), 0.9, Long.MAX_VALUE, 86_400_000);
+        Path source = Files.writeString(tempDir.resolve("source.gml"), COLLECTION);
+        Path changed = Files.writeString(
+                tempDir.resolve("changed.gml"), COLLECTION.replace("<xplan:ebene>0", "<xplan:ebene>1"));
+
+        IncrementalRun run = store.prepare(source.toUri(), "project", "result.gml", workDir("run1"));
+        run.complete(Files.copy(source, tempDir.resolve("result1.gml")));
+
+        // the entry of a prepared partial run is not evicted
+        run = store.prepare(changed.toUri(), "project", "result.gml", workDir("run2"));
+        assertTrue(run.isPartial());
+        setLastUsed(tempDir.resolve("store"), System.currentTimeMillis() - 2 * 86_400_000);
+        store.evict();
+        Path result = Files.copy(run.getSource(), tempDir.resolve("result2.gml"));
+        assertTrue(run.complete(result));
+        assertEquals(3, GmlFeatures.countFeatures(result));
+
+        // completed runs release the entry
+        setLastUsed(tempDir.resolve("store"), System.currentTimeMillis() - 2 * 86_400_000);
+        store.evict();
+        assertFalse(store.prepare(changed.toUri(), "project", "result.gml", workDir("run3")).isPartial());
+    }
+
+    private static void setLastUsed(Path storeDir, long time) throws Exception {
+        try (Stream<Path> files = Files.walk(storeDir)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(time));
+            }
+        }
+    }
+
+    private File workDir(String name) throws Exception {
+        return Files.createDirectories(tempDir.resolve(name)).toFile();
+    }
+}
@@ -0,0 +1,76 @@
+package to.wetransform.hale.transformer.schema;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.net.CacheResponse;
+import java.net.SecureCacheResponse;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SchemaRepositoryTest {
+
+    private static final byte[] SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"/>"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSharedContent() {
+        SchemaRepository repository = new SchemaRepository(null);
+        repository.putSchema(URI.create("https://example.org/a.xsd"), SCHEMA);
+        repository.putSchema(URI.create("http://example.org/a.xsd"), SCHEMA.clone());
+
+        assertEquals(2, repository.getSchemaCount());
+        assertEquals(SCHEMA.length, repository.getSize());
+        assertSame(
+                repository.getSchema(URI.create("https://example.org/a.xsd")),
+                repository.getSchema(URI.create("http://example.org/a.xsd")));
+        assertNull(repository.getSchema(URI.create("https://example.org/b.xsd")));
+    }
+
+    @Test
+    void testMirror() {
+        URI location = URI.create("https://example.org/xplan.xsd");
+        new SchemaRepository(tempDir).putSchema(location, SCHEMA);
+
+        SchemaRepository restarted = new SchemaRepository(tempDir);
+        assertArrayEquals(SCHEMA, restarted.getSchema(location));
+        assertEquals(1, restarted.getSchemaCount());
+    }
+
+    @Test
+    void testHttpsResponse() throws Exception {
+        URI location = URI.create("https://example.org/xplan.xsd");
+        SchemaRepository repository = new SchemaRepository(null);
+        repository.putSchema(location, SCHEMA);
+        repository.putSchema(URI.create("http://example.org/xplan.xsd"), SCHEMA);
+
+        // HTTPS connections only use secure cached responses
+        CacheResponse response = repository.get(location, "GET", Map.of());
+        assertTrue(response instanceof SecureCacheResponse);
+        assertFalse(
+                repository.get(URI.create("http://example.org/xplan.xsd"), "GET", Map.of())
+                        instanceof SecureCacheResponse);
+
+        // only responses that are read count as hits
+        assertEquals(0, repository.getHits());
+        try (InputStream body = response.getBody()) {
+            assertArrayEquals(SCHEMA, body.readAllBytes());
+        }
+        assertEquals(1, repository.getHits());
+    }
+
+    @Test
+    void testSchemaLocation() {
+        assertTrue(SchemaRepository.isSchemaLocation(URI.create("https://repository.gdi-de.org/schemas/xplan.XSD")));
+        assertFalse(SchemaRepository.isSchemaLocation(URI.create("file:/tmp/xplan.xsd")));
+        assertFalse(SchemaRepository.isSchemaLocation(URI.create("https://example.org/plan.gml")));
+    }
+}
@@ -0,0 +1,63 @@
+package to.wetransform.hale.transformer.sharding;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import to.wetransform.hale.transformer.gml.FeatureFingerprint;
+
+class ShardPlannerTest {
+
+    @Test
+    void testPlan() {
+        Map<String, FeatureFingerprint> features = new LinkedHashMap<>();
+        features.put("plan", new FeatureFingerprint("p", Set.of("bereich")));
+        features.put("bereich", new FeatureFingerprint("b", Set.of("plan", "a1", "a2", "b1", "b2")));
+        // two pairs of linked features
+        features.put("a1", new FeatureFingerprint("a1", Set.of("bereich", "a2")));
+        features.put("a2", new FeatureFingerprint("a2", Set.of("bereich")));
+        features.put("b1", new FeatureFingerprint("b1", Set.of("bereich", "b2")));
+        features.put("b2", new FeatureFingerprint("b2", Set.of("bereich")));
+
+        ShardPlan plan = new ShardPlanner(4).plan(features, 2);
+
+        // the area is linked to everything and is part of all shards
+        assertEquals(Set.of("bereich"), plan.sharedFeatures());
+        assertTrue(plan.includes(0, "bereich"));
+        assertTrue(plan.includes(1, "bereich"));
+
+        // linked features stay together
+        assertEquals(plan.assignment().get("a1"), plan.assignment().get("a2"));
+        assertEquals(plan.assignment().get("b1"), plan.assignment().get("b2"));
+        assertNotEquals(plan.assignment().get("a1"), plan.assignment().get("b1"));
+        for (String id : features.keySet()) {
+            assertTrue(plan.includes(0, id) || plan.includes(1, id));
+        }
+    }
+
+    @Test
+    void testRetainsIds() {
+        Map<String, FeatureFingerprint> features = new LinkedHashMap<>();
+        features.put("bereich", new FeatureFingerprint("b", Set.of("a1", "a2", "b1", "b2")));
+        features.put("a1", new FeatureFingerprint("a1", Set.of("bereich")));
+        features.put("a2", new FeatureFingerprint("a2", Set.of("bereich")));
+        features.put("b1", new FeatureFingerprint("b1", Set.of("bereich")));
+        features.put("b2", new FeatureFingerprint("b2", Set.of("bereich")));
+
+        ShardPlan plan = new ShardPlanner(2).plan(features, 2);
+        int shard = plan.assignment().get("a1");
+
+        // alignment retaining the source identifiers
+        assertTrue(plan.retainsIds(shard, Set.of("bereich", "a1")));
+
+        // alignment assigning new identifiers, shared features would be duplicated
+        assertFalse(plan.retainsIds(shard, Set.of("bereich-" + shard, "a1")));
+        assertFalse(plan.retainsIds(shard, new HashSet<>(Arrays.asList("bereich", null))));
+        assertFalse(plan.retainsIds(1 - shard, Set.of("bereich", "a1")));
+    }
+}
@@ -0,0 +1,342 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xplan:XPlanAuszug xmlns:xplan="http://www.xplanung.de/xplangml/5/4" xmlns:gml="http://www.opengis.net/gml/3.2" xmlns:xlink="http://www.w3.org/1999/xlink" gml:id="auszug-1">
+  <gml:featureMember>
+    <xplan:BP_Plan gml:id="plan-1">
+      <xplan:name>Synthetic plan 1</xplan:name>
+      <xplan:raeumlicherGeltungsbereich>
+        <gml:Polygon gml:id="plan-geom-1" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>568985.000 5934588.000 569085.000 5934588.000 569085.000 5934688.000 568985.000 5934688.000 568985.000 5934588.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:raeumlicherGeltungsbereich>
+      <xplan:gemeinde><xplan:XP_Gemeinde><xplan:ags>02000000</xplan:ags></xplan:XP_Gemeinde></xplan:gemeinde>
+      <xplan:planArt>1000</xplan:planArt>
+      <xplan:bereich xlink:href="#bereich-1"/>
+    </xplan:BP_Plan>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_Bereich gml:id="bereich-1">
+      <xplan:nummer>0</xplan:nummer>
+      <xplan:planinhalt xlink:href="#flaeche-1-0"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-1"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-2"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-3"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-4"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-5"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-6"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-7"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-8"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-9"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-10"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-11"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-12"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-13"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-14"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-15"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-16"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-17"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-18"/>
+      <xplan:planinhalt xlink:href="#flaeche-1-19"/>
+      <xplan:gehoertZuPlan xlink:href="#plan-1"/>
+    </xplan:BP_Bereich>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-0">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-0-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>568985.000 5934588.000 568999.101 5934588.000 568999.101 5934602.101 568985.000 5934602.101 568985.000 5934588.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.6</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-1">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-1-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569005.000 5934588.000 569015.362 5934588.000 569015.362 5934598.362 569005.000 5934598.362 569005.000 5934588.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.3</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-2">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-2-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569025.000 5934588.000 569044.678 5934588.000 569044.678 5934607.678 569025.000 5934607.678 569025.000 5934588.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.6</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-3">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-3-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569045.000 5934588.000 569056.527 5934588.000 569056.527 5934599.527 569045.000 5934599.527 569045.000 5934588.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.5</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-4">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-4-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569065.000 5934588.000 569084.399 5934588.000 569084.399 5934607.399 569065.000 5934607.399 569065.000 5934588.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.4</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-5">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-5-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>568985.000 5934608.000 569004.110 5934608.000 569004.110 5934627.110 568985.000 5934627.110 568985.000 5934608.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.6</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-6">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-6-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569005.000 5934608.000 569018.972 5934608.000 569018.972 5934621.972 569005.000 5934621.972 569005.000 5934608.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.2</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-7">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-7-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569025.000 5934608.000 569036.593 5934608.000 569036.593 5934619.593 569025.000 5934619.593 569025.000 5934608.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.6</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-8">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-8-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569045.000 5934608.000 569060.065 5934608.000 569060.065 5934623.065 569045.000 5934623.065 569045.000 5934608.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.4</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-9">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-9-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569065.000 5934608.000 569080.393 5934608.000 569080.393 5934623.393 569065.000 5934623.393 569065.000 5934608.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.6</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-10">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-10-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>568985.000 5934628.000 569001.599 5934628.000 569001.599 5934644.599 568985.000 5934644.599 568985.000 5934628.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.5</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-11">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-11-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569005.000 5934628.000 569022.617 5934628.000 569022.617 5934645.617 569005.000 5934645.617 569005.000 5934628.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.2</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-12">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-12-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569025.000 5934628.000 569036.398 5934628.000 569036.398 5934639.398 569025.000 5934639.398 569025.000 5934628.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.2</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-13">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-13-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569045.000 5934628.000 569059.502 5934628.000 569059.502 5934642.502 569045.000 5934642.502 569045.000 5934628.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.4</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-14">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-14-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569065.000 5934628.000 569075.050 5934628.000 569075.050 5934638.050 569065.000 5934638.050 569065.000 5934628.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.2</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-15">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-15-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>568985.000 5934648.000 568995.234 5934648.000 568995.234 5934658.234 568985.000 5934658.234 568985.000 5934648.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.4</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-16">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-16-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569005.000 5934648.000 569016.420 5934648.000 569016.420 5934659.420 569005.000 5934659.420 569005.000 5934648.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.3</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-17">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-17-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569025.000 5934648.000 569035.754 5934648.000 569035.754 5934658.754 569025.000 5934658.754 569025.000 5934648.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.2</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-18">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-18-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569045.000 5934648.000 569060.771 5934648.000 569060.771 5934663.771 569045.000 5934663.771 569045.000 5934648.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.6</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+  <gml:featureMember>
+    <xplan:BP_BaugebietsTeilFlaeche gml:id="flaeche-1-19">
+      <xplan:ebene>0</xplan:ebene>
+      <xplan:rechtscharakter>1000</xplan:rechtscharakter>
+      <xplan:gehoertZuBereich xlink:href="#bereich-1"/>
+      <xplan:position>
+        <gml:Polygon gml:id="flaeche-1-19-geom" srsName="EPSG:25832">
+          <gml:exterior><gml:LinearRing><gml:posList>569065.000 5934648.000 569077.741 5934648.000 569077.741 5934660.741 569065.000 5934660.741 569065.000 5934648.000</gml:posList></gml:LinearRing></gml:exterior>
+        </gml:Polygon>
+      </xplan:position>
+      <xplan:flaechenschluss>true</xplan:flaechenschluss>
+      <xplan:allgArtDerBaulNutzung>1000</xplan:allgArtDerBaulNutzung>
+      <xplan:GRZ>0.3</xplan:GRZ>
+    </xplan:BP_BaugebietsTeilFlaeche>
+  </gml:featureMember>
+</xplan:XPlanAuszug>